@@ -0,0 +1,20 @@
+package com.igniubi.core.aysnc.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 与{@link AysncProvider}一起使用, 声明provider为批量provider.
+ * 方法只有一个{@link InvokeParameter}参数, 类型为Collection&lt;K&gt;, 返回Map&lt;K,V&gt;;
+ * 调用方仍按单个key查询, 时间窗口内的多个key合并成一次方法调用
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface AysncBatchProvider {
+
+    //单次批量调用的最大key数量, 达到后立即调用
+    int batchSize() default 100;
+
+    //收集key的时间窗口(毫秒)
+    long window() default 2;
+}
@@ -26,4 +26,32 @@ public @interface AysncProvider {
     boolean idempotent() default true;
 
     boolean useCache() default true;
+
+    //对冲调用延迟(毫秒), 首次调用超过该时间未返回时再发起一次并取先返回的结果, 只对幂等provider生效
+    //大于0为固定延迟, HEDGE_AT_P95使用观察到的p95
+    long hedgeAfterMillis() default 0;
+
+    long HEDGE_AT_P95 = -1;
+
+    //作为依赖时直接在调用方线程执行, 不提交到线程池, 只用于没有依赖的轻量provider
+    boolean inline() default false;
+
+    //跨请求结果缓存时间(毫秒), 大于0时开启, 只对幂等provider生效
+    long cacheTtl() default 0;
+
+    //跨请求结果缓存最大条目数, 物化图每张图最多保存的节点结果数
+    int maxEntries() default 1000;
+
+    //跨请求结果缓存最大总权重, 大于0时按结果大小淘汰: 集合和Map按元素个数, 数组按长度, 字符串按字符数, 其他结果为1
+    long maxWeight() default 0;
+
+    //物化图: 作为根查询时保存依赖图中每个节点的结果, 之后只重新计算被invalidate的provider及其祖先, 只对幂等provider生效
+    boolean materialized() default false;
+
+    //执行provider的线程池: IO为默认线程池, CPU为按核数创建的ForkJoinPool, 其他值为ExecutorService的bean名称
+    String executor() default IO;
+
+    String IO = "io";
+
+    String CPU = "cpu";
 }
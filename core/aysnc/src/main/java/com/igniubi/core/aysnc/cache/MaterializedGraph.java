@@ -0,0 +1,123 @@
+package com.igniubi.core.aysnc.cache;
+
+import com.igniubi.core.aysnc.model.AysncProviderDefinition;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 物化图: 保存根provider依赖图中每个节点最后一次计算的结果, 按节点读取的调用参数区分.
+ * 结果记录计算开始时的版本号, 版本号未变化的节点直接复用, 不再计算它的子图
+ */
+public class MaterializedGraph {
+
+    private final MaterializedGraphManager manager;
+
+    private final int maxEntries;
+
+    private final ConcurrentHashMap<NodeKey, Node> nodes = new ConcurrentHashMap<>();
+
+    MaterializedGraph(MaterializedGraphManager manager, int maxEntries) {
+        this.manager = manager;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * 查找节点结果, 在开始计算节点之前调用
+     *
+     * @param provider     节点provider
+     * @param inputKeys    节点子图读取的调用参数key
+     * @param invokeParams 调用参数
+     * @return 节点的memo, 干净时可以直接取值, 否则计算后更新
+     */
+    public Memo memo(AysncProviderDefinition provider, String[] inputKeys, Map<String, Object> invokeParams) {
+        Object[] inputs = new Object[inputKeys.length];
+        for (int i = 0; i < inputKeys.length; i++) {
+            inputs[i] = invokeParams.get(inputKeys[i]);
+        }
+        NodeKey key = new NodeKey(provider.getName(), inputKeys, inputs);
+        return new Memo(key, manager.version(provider.getName()), nodes.get(key));
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    void clear() {
+        nodes.clear();
+    }
+
+    public class Memo {
+        private final NodeKey key;
+        private final long version;
+        private final Node node;
+
+        private Memo(NodeKey key, long version, Node node) {
+            this.key = key;
+            this.version = version;
+            this.node = node;
+        }
+
+        public boolean isClean() {
+            return node != null && node.version == version;
+        }
+
+        public Object getValue() {
+            return node.value;
+        }
+
+        /**
+         * 保存计算结果, 计算期间节点再次失效时结果带着旧版本号, 下次查询仍会重新计算
+         */
+        public void update(Object value) {
+            /* 超过上限时整张图重新物化 */
+            if (nodes.size() >= maxEntries && ! nodes.containsKey(key)) {
+                nodes.clear();
+            }
+            nodes.put(key, new Node(value, version));
+        }
+    }
+
+    private static final class Node {
+        private final Object value;
+        private final long version;
+
+        private Node(Object value, long version) {
+            this.value = value;
+            this.version = version;
+        }
+    }
+
+    private static final class NodeKey {
+        private final String provider;
+        private final String[] inputKeys;
+        private final Object[] inputs;
+        private final int hashCode;
+
+        private NodeKey(String provider, String[] inputKeys, Object[] inputs) {
+            this.provider = provider;
+            this.inputKeys = inputKeys;
+            this.inputs = inputs;
+            this.hashCode = 31 * (31 * provider.hashCode() + Arrays.hashCode(inputKeys)) + Arrays.deepHashCode(inputs);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (! (o instanceof NodeKey)) {
+                return false;
+            }
+            NodeKey that = (NodeKey) o;
+            return hashCode == that.hashCode && provider.equals(that.provider)
+                    && Arrays.equals(inputKeys, that.inputKeys) && Arrays.deepEquals(inputs, that.inputs);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.igniubi.core.aysnc.cache;
+
+import com.igniubi.core.aysnc.model.AysncExecutionPlan;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 管理所有物化图, 并为图中每个provider维护版本号.
+ * provider失效时, 它和它在物化图中的所有祖先版本号加一, 版本号变化的节点在下次查询时重新计算
+ */
+public class MaterializedGraphManager {
+
+    private final ConcurrentHashMap<String, MaterializedGraph> graphs = new ConcurrentHashMap<>();
+
+    /**
+     * provider在物化图中的祖先, 包括自身
+     */
+    private final ConcurrentHashMap<String, Set<String>> ancestors = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    /**
+     * 获取根provider的物化图, 第一次查询时创建
+     *
+     * @param plan       根provider的执行计划
+     * @param maxEntries 每张图最多保存的节点结果数
+     * @return 物化图
+     */
+    public MaterializedGraph graph(AysncExecutionPlan plan, int maxEntries) {
+        MaterializedGraph graph = graphs.get(plan.getProvider().getName());
+        if (graph != null) {
+            return graph;
+        }
+        synchronized (ancestors) {
+            collectAncestors(plan, new ArrayDeque<>());
+        }
+        return graphs.computeIfAbsent(plan.getProvider().getName(), name -> new MaterializedGraph(this, maxEntries));
+    }
+
+    private void collectAncestors(AysncExecutionPlan plan, Deque<String> path) {
+        String name = plan.getProvider().getName();
+        path.push(name);
+        Set<String> merged = new HashSet<>(ancestors.getOrDefault(name, Collections.emptySet()));
+        merged.addAll(path);
+        ancestors.put(name, Collections.unmodifiableSet(merged));
+        for (AysncExecutionPlan.Depend depend : plan.getDepends()) {
+            collectAncestors(depend.getPlan(), path);
+        }
+        path.pop();
+    }
+
+    public long version(String provider) {
+        AtomicLong version = versions.get(provider);
+        return version == null ? 0L : version.get();
+    }
+
+    /**
+     * 标记provider及其祖先为脏, 不在物化图中的provider忽略
+     *
+     * @param provider provider name
+     */
+    public void invalidate(String provider) {
+        Set<String> dirty = ancestors.get(provider);
+        if (dirty == null) {
+            return;
+        }
+        for (String name : dirty) {
+            versions.computeIfAbsent(name, key -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    public void invalidateAll() {
+        for (MaterializedGraph graph : graphs.values()) {
+            graph.clear();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.igniubi.core.aysnc.cache;
+
+import lombok.Data;
+
+@Data
+public class ProviderCacheStats {
+    private String name;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long size;
+    private long weight;
+}
@@ -0,0 +1,223 @@
+package com.igniubi.core.aysnc.cache;
+
+import com.igniubi.core.aysnc.model.InvokeSignature;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * 幂等provider的跨请求结果缓存, 按InvokeSignature缓存
+ * 按hash分段加锁, 每段是一个按访问顺序淘汰的LinkedHashMap, 总条目数不超过maxEntries,
+ * 配置了maxWeight时按结果权重淘汰, 总权重不超过maxWeight, 单个结果超过分段权重上限时不缓存
+ */
+public class ProviderResultCache {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final String name;
+
+    private final long ttlMillis;
+
+    private final ResultWeigher weigher;
+
+    private final Segment[] segments;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    public ProviderResultCache(String name, long ttlMillis, int maxEntries) {
+        this(name, ttlMillis, maxEntries, 0L, ResultWeigher.ELEMENTS);
+    }
+
+    /**
+     * @param maxWeight 最大总权重, 不大于0时只按条目数淘汰
+     * @param weigher   结果权重
+     */
+    public ProviderResultCache(String name, long ttlMillis, int maxEntries, long maxWeight, ResultWeigher weigher) {
+        this.name = name;
+        this.ttlMillis = ttlMillis;
+        this.weigher = weigher;
+        int segmentCount = Math.max(1, Math.min(MAX_SEGMENTS, maxEntries / MAX_SEGMENTS));
+        this.segments = new Segment[segmentCount];
+        /* 向下取整后余数分给前面的分段, 各段之和正好等于配置的上限 */
+        for (int i = 0; i < segmentCount; i++) {
+            int capacity = maxEntries / segmentCount + (i < maxEntries % segmentCount ? 1 : 0);
+            long weightCapacity = maxWeight > 0
+                    ? maxWeight / segmentCount + (i < maxWeight % segmentCount ? 1 : 0) : Long.MAX_VALUE;
+            segments[i] = new Segment(capacity, weightCapacity);
+        }
+    }
+
+    /**
+     * 查询缓存
+     *
+     * @param signature 调用签名
+     * @return 缓存条目, 未命中或已过期返回null
+     */
+    public Entry get(InvokeSignature signature) {
+        Segment segment = segmentFor(signature);
+        Entry entry;
+        synchronized (segment) {
+            entry = segment.entries.get(signature);
+            if (entry != null && entry.expireAt <= System.currentTimeMillis()) {
+                segment.remove(signature);
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return entry;
+    }
+
+    public void put(InvokeSignature signature, Object value) {
+        Segment segment = segmentFor(signature);
+        Entry entry = new Entry(value, System.currentTimeMillis() + ttlMillis, weigher.weigh(value));
+        synchronized (segment) {
+            segment.put(signature, entry);
+        }
+    }
+
+    public void invalidate(InvokeSignature signature) {
+        Segment segment = segmentFor(signature);
+        synchronized (segment) {
+            segment.remove(signature);
+        }
+    }
+
+    /**
+     * 清除签名满足条件的条目, 需要遍历所有分段
+     */
+    public void invalidateIf(Predicate<InvokeSignature> predicate) {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                Iterator<Map.Entry<InvokeSignature, Entry>> iterator = segment.entries.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<InvokeSignature, Entry> item = iterator.next();
+                    if (predicate.test(item.getKey())) {
+                        segment.weight -= item.getValue().weight;
+                        iterator.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.entries.clear();
+                segment.weight = 0;
+            }
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+
+    public long weight() {
+        long weight = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                weight += segment.weight;
+            }
+        }
+        return weight;
+    }
+
+    public ProviderCacheStats stats() {
+        ProviderCacheStats stats = new ProviderCacheStats();
+        stats.setName(name);
+        stats.setHits(hits.sum());
+        stats.setMisses(misses.sum());
+        stats.setEvictions(evictions.sum());
+        stats.setSize(size());
+        stats.setWeight(weight());
+        return stats;
+    }
+
+    private Segment segmentFor(InvokeSignature signature) {
+        int hash = signature.hashCode();
+        hash ^= (hash >>> 16);
+        return segments[(hash & Integer.MAX_VALUE) % segments.length];
+    }
+
+    /**
+     * 缓存条目, value允许为null
+     */
+    public static final class Entry {
+
+        private final Object value;
+
+        private final long expireAt;
+
+        private final int weight;
+
+        Entry(Object value, long expireAt, int weight) {
+            this.value = value;
+            this.expireAt = expireAt;
+            this.weight = weight;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * 一个分段, 只在持有分段的锁时访问
+     */
+    private final class Segment {
+
+        private final Map<InvokeSignature, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        private final int capacity;
+
+        private final long weightCapacity;
+
+        private long weight;
+
+        Segment(int capacity, long weightCapacity) {
+            this.capacity = capacity;
+            this.weightCapacity = weightCapacity;
+        }
+
+        void put(InvokeSignature signature, Entry entry) {
+            if (entry.weight > weightCapacity) {
+                /* 单个结果超过分段上限, 缓存它会挤掉整个分段 */
+                remove(signature);
+                return;
+            }
+            Entry old = entries.put(signature, entry);
+            weight += entry.weight - (old == null ? 0 : old.weight);
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (entries.size() > capacity || weight > weightCapacity) {
+                weight -= eldest.next().weight;
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+
+        void remove(InvokeSignature signature) {
+            Entry old = entries.remove(signature);
+            if (old != null) {
+                weight -= old.weight;
+            }
+        }
+    }
+}
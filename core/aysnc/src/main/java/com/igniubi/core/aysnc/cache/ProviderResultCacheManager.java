@@ -0,0 +1,37 @@
+package com.igniubi.core.aysnc.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 管理所有配置了cacheTtl的provider结果缓存, 查询时直接使用provider定义上的缓存引用
+ */
+public class ProviderResultCacheManager {
+
+    private final ConcurrentHashMap<String, ProviderResultCache> caches = new ConcurrentHashMap<>();
+
+    public ProviderResultCache create(String name, long ttlMillis, int maxEntries, long maxWeight) {
+        ProviderResultCache cache = new ProviderResultCache(name, ttlMillis, maxEntries, maxWeight, ResultWeigher.ELEMENTS);
+        caches.put(name, cache);
+        return cache;
+    }
+
+    public ProviderResultCache get(String name) {
+        return caches.get(name);
+    }
+
+    public void invalidateAll() {
+        for (ProviderResultCache cache : caches.values()) {
+            cache.invalidateAll();
+        }
+    }
+
+    public Map<String, ProviderCacheStats> stats() {
+        Map<String, ProviderCacheStats> stats = new LinkedHashMap<>(caches.size());
+        for (Map.Entry<String, ProviderResultCache> item : caches.entrySet()) {
+            stats.put(item.getKey(), item.getValue().stats());
+        }
+        return stats;
+    }
+}
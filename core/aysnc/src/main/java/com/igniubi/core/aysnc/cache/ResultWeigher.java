@@ -0,0 +1,33 @@
+package com.igniubi.core.aysnc.cache;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 计算provider结果在跨请求结果缓存中的权重, 权重至少为1
+ */
+@FunctionalInterface
+public interface ResultWeigher {
+
+    /**
+     * 集合和Map按元素个数, 数组按长度, 字符串按字符数, 其他结果为1
+     */
+    ResultWeigher ELEMENTS = value -> {
+        int weight;
+        if (value instanceof Collection) {
+            weight = ((Collection<?>) value).size();
+        } else if (value instanceof Map) {
+            weight = ((Map<?, ?>) value).size();
+        } else if (value instanceof CharSequence) {
+            weight = ((CharSequence) value).length();
+        } else if (value != null && value.getClass().isArray()) {
+            weight = Array.getLength(value);
+        } else {
+            weight = 1;
+        }
+        return Math.max(1, weight);
+    };
+
+    int weigh(Object value);
+}
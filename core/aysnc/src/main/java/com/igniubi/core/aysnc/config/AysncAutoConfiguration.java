@@ -1,21 +1,38 @@
 package com.igniubi.core.aysnc.config;
 
 import com.igniubi.core.aysnc.annotation.AysncProvider;
+import com.igniubi.core.aysnc.cache.MaterializedGraphManager;
+import com.igniubi.core.aysnc.cache.ProviderResultCacheManager;
 import com.igniubi.core.aysnc.facade.AysncBeanQueryFacade;
 import com.igniubi.core.aysnc.facade.AysncDataFacade;
 import com.igniubi.core.aysnc.facade.DefaultAysncBeanQueryFacade;
+import com.igniubi.core.aysnc.index.AysncProviderIndex;
+import com.igniubi.core.aysnc.invoker.BatchProviderInvoker;
+import com.igniubi.core.aysnc.metrics.CountingRejectedExecutionHandler;
 import com.igniubi.core.aysnc.model.AysncConsumerDefinition;
 import com.igniubi.core.aysnc.model.AysncProviderDefinition;
 import com.igniubi.core.aysnc.repository.AysncProviderRepository;
 import com.igniubi.core.aysnc.repository.DefaultAysncProviderRepository;
+import com.igniubi.core.aysnc.service.AbstractAysncDataQueryService;
+import com.igniubi.core.aysnc.service.AdmissionController;
 import com.igniubi.core.aysnc.service.AysncDataQueryService;
 import com.igniubi.core.aysnc.service.DefaultAysncDataQueryService;
+import com.igniubi.core.aysnc.service.FutureAysncDataQueryService;
+import com.igniubi.core.aysnc.service.ProviderConcurrencyLimiter;
+import com.igniubi.core.aysnc.service.ProviderHedger;
+import com.igniubi.core.aysnc.trace.QueryTraceListener;
 import com.igniubi.core.aysnc.utils.DefinitionUtils;
+import com.igniubi.core.aysnc.utils.ExecutionPlanUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.reflections.Reflections;
 import org.reflections.scanners.MethodAnnotationsScanner;
+import org.reflections.util.ClasspathHelper;
+import org.reflections.util.ConfigurationBuilder;
+import org.reflections.util.FilterBuilder;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -28,21 +45,55 @@ import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.util.Assert;
 
+import java.io.IOException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.net.URL;
 import java.util.*;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Configuration
+@Slf4j
 @EnableConfigurationProperties(AysncProperties.class)
-public class AysncAutoConfiguration implements ApplicationContextAware {
+public class AysncAutoConfiguration implements ApplicationContextAware, SmartInitializingSingleton, DisposableBean {
 
     private ApplicationContext applicationContext;
 
+    /**
+     * 由本配置创建的线程池, 虚拟线程池的实现类不是public的, 不能交给容器按方法名反射关闭
+     */
+    private ExecutorService executorService;
+
+    /**
+     * future引擎的依赖超时计时器
+     */
+    private ScheduledThreadPoolExecutor timeoutScheduler;
+
+    /**
+     * 由本配置创建的CPU线程池
+     */
+    private ExecutorService cpuExecutorService;
+
+    /**
+     * 由本配置创建的阻塞式引擎异步查询线程池
+     */
+    private ExecutorService queryExecutorService;
+
+    /**
+     * 批量provider关闭批次和执行批量调用的线程池, 没有批量provider时为null
+     */
+    private ScheduledThreadPoolExecutor batchScheduler;
+
+    private final List<AysncProviderDefinition> providers = new ArrayList<>(64);
+
     @Autowired
     private AysncProperties properties;
 
@@ -56,15 +107,38 @@ public class AysncAutoConfiguration implements ApplicationContextAware {
      *
      * @return 线程池服务
      */
-    @Bean(name = "aysncExecutorService")
+    @Bean(name = "aysncExecutorService", destroyMethod = "")
     @ConditionalOnMissingBean(name = "aysncExecutorService",value=ExecutorService.class)
     public ExecutorService aggregateExecutorService() {
-        return new ThreadPoolExecutor(
+        if (properties.getExecutor() == ExecutorType.VIRTUAL) {
+            executorService = VirtualThreads.newVirtualThreadPerTaskExecutor(properties.getThreadPrefix());
+            return executorService;
+        }
+        executorService = new ThreadPoolExecutor(
                 properties.getThreadNumber(),
                 properties.getThreadNumber() ,
                 2L, TimeUnit.HOURS,
                 new LinkedBlockingDeque<>(properties.getQueueSize()),
-                new CustomizableThreadFactory(properties.getThreadPrefix()));
+                new CustomizableThreadFactory(properties.getThreadPrefix()),
+                new CountingRejectedExecutionHandler());
+        return executorService;
+    }
+
+    /**
+     * CPU密集型provider使用的线程池, 线程数与核数一致, 允许自定义
+     *
+     * @return 线程池服务
+     */
+    @Bean(name = "aysncCpuExecutorService", destroyMethod = "")
+    @ConditionalOnMissingBean(name = "aysncCpuExecutorService")
+    public ExecutorService aggregateCpuExecutorService() {
+        String prefix = properties.getThreadPrefix() + "cpu-";
+        cpuExecutorService = new ForkJoinPool(properties.getCpuThreadNumber(), pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName(prefix + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        return cpuExecutorService;
     }
 
     /**
@@ -79,16 +153,29 @@ public class AysncAutoConfiguration implements ApplicationContextAware {
     }
 
 
+    @Bean
+    @ConditionalOnMissingBean
+    public ProviderResultCacheManager providerResultCacheManager() {
+        return new ProviderResultCacheManager();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public MaterializedGraphManager materializedGraphManager() {
+        return new MaterializedGraphManager();
+    }
+
     @Bean
     @ConditionalOnMissingBean
     public AysncDataQueryService dataBeanAggregateQueryService (
             @Qualifier("aysncProviderRepository") AysncProviderRepository aysncProviderRepository) {
         if(properties.getBasePackages() != null) {
             Map<String,Set<String>> provideDependMap = new HashMap<>(64);
+            Map<AysncProviderDefinition, Integer> materializedRoots = new HashMap<>();
+            List<AysncProviderIndex.Entry> index = loadProviderIndex();
+            Set<String> indexedRoots = index.isEmpty() ? Collections.emptySet() : indexedRoots();
             for (String basePackage : properties.getBasePackages()) {
-                Reflections reflections = new Reflections(basePackage, new MethodAnnotationsScanner());
-                Set<Method> providerMethods = reflections.getMethodsAnnotatedWith(AysncProvider.class);
-                for (Method method : providerMethods) {
+                for (Method method : providerMethods(basePackage, index, indexedRoots)) {
                     AysncProvider beanProvider = AnnotationUtils.findAnnotation(method, AysncProvider.class);
                     String dataId = beanProvider.name();
                     Assert.isTrue(Modifier.isPublic(method.getModifiers()),"data provider method must be public");
@@ -97,27 +184,245 @@ public class AysncAutoConfiguration implements ApplicationContextAware {
 
                     provider.setName(dataId);
                     provider.setIdempotent(beanProvider.idempotent());
+                    provider.setUseCache(beanProvider.useCache());
+                    if (beanProvider.hedgeAfterMillis() != 0) {
+                        Assert.isTrue(beanProvider.idempotent(), "hedged invocation requires an idempotent data provider. dataId: " + dataId);
+                        provider.setHedger(new ProviderHedger(beanProvider.hedgeAfterMillis(), properties.getHedgeBudgetPercent()));
+                    }
+                    provider.setExecutor(executorOf(beanProvider.executor()));
+                    if (beanProvider.inline()) {
+                        Assert.isTrue(provider.getDepends().isEmpty(), "inline data provider must not have depends. dataId: " + dataId);
+                        Assert.isTrue(provider.getExecutor() == null, "inline data provider must not declare an executor. dataId: " + dataId);
+                        provider.setInline(true);
+                    }
                     provider.setTimeout(beanProvider.timeout() > 0 ? beanProvider.timeout() : properties.getDefaultTimeout());
+                    if (beanProvider.cacheTtl() > 0) {
+                        Assert.isTrue(beanProvider.idempotent(), "result cache requires an idempotent data provider. dataId: " + dataId);
+                        Assert.isTrue(beanProvider.maxEntries() > 0, "maxEntries must be positive. dataId: " + dataId);
+                        provider.setResultCache(providerResultCacheManager()
+                                .create(dataId, beanProvider.cacheTtl(), beanProvider.maxEntries(), beanProvider.maxWeight()));
+                    }
+                    if (beanProvider.materialized()) {
+                        Assert.isTrue(beanProvider.idempotent(), "materialized graph requires an idempotent data provider. dataId: " + dataId);
+                        Assert.isTrue(beanProvider.maxEntries() > 0, "maxEntries must be positive. dataId: " + dataId);
+                        materializedRoots.put(provider, beanProvider.maxEntries());
+                    }
                     Assert.isTrue(! aysncProviderRepository.contains(dataId), "Data providers with the same name are not allowed. dataId: " + dataId);
                     provideDependMap.put(dataId, provider.getDepends().stream().map(AysncConsumerDefinition::getName).collect(Collectors.toSet()));
                     aysncProviderRepository.put(provider);
+                    providers.add(provider);
                 }
             }
             checkCycle(provideDependMap);
+            for (AysncProviderDefinition provider : providers) {
+                ExecutionPlanUtils.compile(provider, aysncProviderRepository, properties.isIgnoreException());
+            }
+            for (Map.Entry<AysncProviderDefinition, Integer> root : materializedRoots.entrySet()) {
+                root.getKey().setMaterializedGraph(materializedGraphManager().graph(root.getKey().getPlan(), root.getValue()));
+            }
+            bindBatchInvokers();
         }
 
-        DefaultAysncDataQueryService service = new DefaultAysncDataQueryService();
+        AbstractAysncDataQueryService service;
+        if (properties.getEngine() == EngineType.FUTURE) {
+            FutureAysncDataQueryService futureService = new FutureAysncDataQueryService();
+            timeoutScheduler = new ScheduledThreadPoolExecutor(1, new CustomizableThreadFactory(properties.getThreadPrefix() + "timeout-"));
+            timeoutScheduler.setRemoveOnCancelPolicy(true);
+            futureService.setTimeoutScheduler(timeoutScheduler);
+            service = futureService;
+        } else {
+            service = new DefaultAysncDataQueryService();
+            service.setQueryExecutor(queryExecutor());
+        }
         RuntimeSettings runtimeSettings = new RuntimeSettings();
         runtimeSettings.setIgnoreException(properties.isIgnoreException());
         runtimeSettings.setTimeout(properties.getDefaultTimeout());
         service.setRepository(aysncProviderRepository);
         service.setRuntimeSettings(runtimeSettings);
-        service.setExecutorService(aggregateExecutorService());
+        ExecutorService executor = aggregateExecutorService();
+        service.setExecutorService(executor);
+        if (properties.isAdmissionControl() && executor instanceof ThreadPoolExecutor) {
+            service.setAdmissionController(new AdmissionController((ThreadPoolExecutor) executor, properties.getShedPolicy()));
+        }
         service.setApplicationContext(applicationContext);
+        service.setResultCacheManager(providerResultCacheManager());
+        service.setMaterializedGraphManager(materializedGraphManager());
+        service.setSingleFlight(properties.isSingleFlight());
+        service.setTraceEnabled(properties.isTrace());
+        service.setInlineLastDepend(properties.isInlineLastDepend());
+        if (properties.getExecutor() == ExecutorType.VIRTUAL) {
+            service.setConcurrencyLimiter(new ProviderConcurrencyLimiter(properties.getProviderConcurrency(),
+                    properties.getProviderConcurrencyLimits()));
+        }
         return service;
     }
 
 
+    /**
+     * 所有单例创建完成后, 把provider绑定到所属bean上, 查询时不再从容器获取
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (AysncProviderDefinition provider : providers) {
+            Method method = provider.getMethod();
+            if (provider.getTarget() != null || Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            Map<String, ?> beans = applicationContext.getBeansOfType(method.getDeclaringClass());
+            if (beans.size() == 1) {
+                provider.setTarget(beans.values().iterator().next());
+            }
+        }
+        AysncDataQueryService service = applicationContext.getBean(AysncDataQueryService.class);
+        if (service instanceof AbstractAysncDataQueryService) {
+            ((AbstractAysncDataQueryService) service).setTraceListeners(applicationContext
+                    .getBeanProvider(QueryTraceListener.class).orderedStream().collect(Collectors.toList()));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (executorService != null) {
+            executorService.shutdown();
+        }
+        if (timeoutScheduler != null) {
+            timeoutScheduler.shutdown();
+        }
+        if (cpuExecutorService != null) {
+            cpuExecutorService.shutdown();
+        }
+        if (queryExecutorService != null) {
+            queryExecutorService.shutdown();
+        }
+        if (batchScheduler != null) {
+            batchScheduler.shutdown();
+        }
+    }
+
+    /**
+     * 批量调用不在依赖的线程池上执行, 否则等待批量结果的依赖会占满线程, 批量调用排不上队
+     */
+    private void bindBatchInvokers() {
+        for (AysncProviderDefinition provider : providers) {
+            if (! (provider.getInvoker() instanceof BatchProviderInvoker)) {
+                continue;
+            }
+            if (batchScheduler == null) {
+                batchScheduler = new ScheduledThreadPoolExecutor(properties.getThreadNumber(),
+                        new CustomizableThreadFactory(properties.getThreadPrefix() + "batch-"));
+                batchScheduler.setKeepAliveTime(60L, TimeUnit.SECONDS);
+                batchScheduler.allowCoreThreadTimeOut(true);
+            }
+            ((BatchProviderInvoker) provider.getInvoker()).bind(batchScheduler);
+        }
+    }
+
+    /**
+     * 阻塞式引擎异步查询等待根查询的线程池, 允许用名为aysncQueryExecutorService的bean自定义.
+     * 虚拟线程不会被等待中的根查询占满, 直接使用依赖的线程池
+     */
+    private Executor queryExecutor() {
+        if (applicationContext.containsBean("aysncQueryExecutorService")) {
+            return applicationContext.getBean("aysncQueryExecutorService", Executor.class);
+        }
+        if (properties.getExecutor() == ExecutorType.VIRTUAL) {
+            return aggregateExecutorService();
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                properties.getThreadNumber(),
+                properties.getThreadNumber(),
+                60L, TimeUnit.SECONDS,
+                new LinkedBlockingDeque<>(properties.getQueueSize()),
+                new CustomizableThreadFactory(properties.getThreadPrefix() + "query-"),
+                new CountingRejectedExecutionHandler());
+        executor.allowCoreThreadTimeOut(true);
+        queryExecutorService = executor;
+        return executor;
+    }
+
+    /**
+     * provider声明的线程池, 默认线程池返回null
+     */
+    private ExecutorService executorOf(String executor) {
+        if (StringUtils.isEmpty(executor) || AysncProvider.IO.equals(executor)) {
+            return null;
+        }
+        if (AysncProvider.CPU.equals(executor)) {
+            return applicationContext.getBean("aysncCpuExecutorService", ExecutorService.class);
+        }
+        return applicationContext.getBean(executor, ExecutorService.class);
+    }
+
+    /**
+     * 读取编译期生成的provider索引, 关闭或读取失败时返回空
+     */
+    private List<AysncProviderIndex.Entry> loadProviderIndex() {
+        if (! properties.isUseProviderIndex()) {
+            return Collections.emptyList();
+        }
+        try {
+            return AysncProviderIndex.load(applicationContext.getClassLoader());
+        } catch (IOException e) {
+            log.warn("load aysnc provider index failed, fallback to classpath scanning", e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * 带有索引的classpath根路径, 读取失败时返回空, 全部路径都会被扫描
+     */
+    private Set<String> indexedRoots() {
+        try {
+            return AysncProviderIndex.indexedRoots(applicationContext.getClassLoader());
+        } catch (IOException e) {
+            log.warn("load aysnc provider index roots failed, fallback to classpath scanning", e);
+            return Collections.emptySet();
+        }
+    }
+
+    /**
+     * 包下的provider方法: 带索引的目录和jar使用索引, 没有索引的(未启用注解处理器编译的模块)仍用Reflections扫描;
+     * 索引过期(类或方法已不存在, 方法上已没有注解)时忽略该条目, 并改为扫描它所在的根路径
+     */
+    private Collection<Method> providerMethods(String basePackage, List<AysncProviderIndex.Entry> index,
+                                               Set<String> indexedRoots) {
+        Set<Method> methods = new LinkedHashSet<>();
+        Set<String> staleRoots = new HashSet<>();
+        for (AysncProviderIndex.Entry entry : index) {
+            if (entry.getClassName().startsWith(basePackage + ".")) {
+                Method method;
+                try {
+                    method = AysncProviderIndex.resolve(entry, applicationContext.getClassLoader());
+                } catch (ClassNotFoundException | NoSuchMethodException e) {
+                    log.warn("aysnc provider index is stale, rescan {}. dataId: {}", entry.getRoot(), entry.getName(), e);
+                    staleRoots.add(entry.getRoot());
+                    continue;
+                }
+                if (AnnotationUtils.findAnnotation(method, AysncProvider.class) == null) {
+                    log.warn("aysnc provider index is stale, rescan {}. dataId: {}, method: {}", entry.getRoot(), entry.getName(), method);
+                    staleRoots.add(entry.getRoot());
+                    continue;
+                }
+                methods.add(method);
+            }
+        }
+        List<URL> urls = new ArrayList<>();
+        for (URL url : ClasspathHelper.forPackage(basePackage, applicationContext.getClassLoader())) {
+            String root = AysncProviderIndex.root(url);
+            if (! indexedRoots.contains(root) || staleRoots.contains(root)) {
+                urls.add(url);
+            }
+        }
+        if (! urls.isEmpty()) {
+            Reflections reflections = new Reflections(new ConfigurationBuilder()
+                    .setUrls(urls)
+                    .filterInputsBy(new FilterBuilder().includePackage(basePackage))
+                    .setScanners(new MethodAnnotationsScanner()));
+            methods.addAll(reflections.getMethodsAnnotatedWith(AysncProvider.class));
+        }
+        return methods;
+    }
+
     /**
      * 检查是不是有循环依赖
      * @param graphAdjMap
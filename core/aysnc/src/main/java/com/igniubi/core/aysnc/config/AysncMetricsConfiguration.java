@@ -0,0 +1,81 @@
+package com.igniubi.core.aysnc.config;
+
+import com.igniubi.core.aysnc.metrics.AysncEndpoint;
+import com.igniubi.core.aysnc.metrics.CountingRejectedExecutionHandler;
+import com.igniubi.core.aysnc.metrics.MicrometerAysncMetricsRecorder;
+import com.igniubi.core.aysnc.repository.AysncProviderRepository;
+import com.igniubi.core.aysnc.service.AbstractAysncDataQueryService;
+import com.igniubi.core.aysnc.service.AysncDataQueryService;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * classpath中有Micrometer时, 容器启动完成后把查询引擎和线程池的指标注册到MeterRegistry,
+ * 没有MeterRegistry时不做任何事
+ */
+@Configuration
+@ConditionalOnClass(MeterRegistry.class)
+public class AysncMetricsConfiguration implements SmartInitializingSingleton {
+
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Autowired
+    private AysncDataQueryService aysncDataQueryService;
+
+    @Autowired
+    @Qualifier("aysncExecutorService")
+    private ExecutorService executorService;
+
+    @Autowired
+    @Qualifier("aysncCpuExecutorService")
+    private ExecutorService cpuExecutorService;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        MeterRegistry registry = meterRegistry.getIfUnique();
+        if (registry == null) {
+            return;
+        }
+        if (aysncDataQueryService instanceof AbstractAysncDataQueryService) {
+            ((AbstractAysncDataQueryService) aysncDataQueryService)
+                    .setMetricsRecorder(new MicrometerAysncMetricsRecorder(registry));
+        }
+        new ExecutorServiceMetrics(executorService, "aysncExecutorService", Collections.emptyList()).bindTo(registry);
+        new ExecutorServiceMetrics(cpuExecutorService, "aysncCpuExecutorService", Collections.emptyList()).bindTo(registry);
+        if (executorService instanceof ThreadPoolExecutor
+                && ((ThreadPoolExecutor) executorService).getRejectedExecutionHandler() instanceof CountingRejectedExecutionHandler) {
+            CountingRejectedExecutionHandler handler =
+                    (CountingRejectedExecutionHandler) ((ThreadPoolExecutor) executorService).getRejectedExecutionHandler();
+            FunctionCounter.builder("executor.rejected", handler, CountingRejectedExecutionHandler::getRejectedCount)
+                    .tag("name", "aysncExecutorService")
+                    .register(registry);
+        }
+    }
+
+    @Configuration
+    @ConditionalOnClass(Endpoint.class)
+    static class AysncEndpointConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public AysncEndpoint aysncEndpoint(@Qualifier("aysncProviderRepository") AysncProviderRepository repository,
+                                           ObjectProvider<MeterRegistry> meterRegistry) {
+            return new AysncEndpoint(repository, meterRegistry);
+        }
+    }
+}
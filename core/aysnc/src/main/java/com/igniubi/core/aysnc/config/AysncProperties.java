@@ -3,6 +3,9 @@ package com.igniubi.core.aysnc.config;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.HashMap;
+import java.util.Map;
+
 @ConfigurationProperties(prefix = "igniubi.aysnc.spring")
 @Data
 public class AysncProperties {
@@ -10,6 +13,10 @@ public class AysncProperties {
      * Packages that need to scan for aggregated annotations
      */
     private String[] basePackages;
+    /**
+     * Load providers from the compile-time index when present, scan base packages with Reflections otherwise
+     */
+    private boolean useProviderIndex = true;
     /**
      * Thread name prefix for asynchronous threads
      */
@@ -18,6 +25,10 @@ public class AysncProperties {
      * Thread size of the asynchronous thread pool
      */
     private int threadNumber = Runtime.getRuntime().availableProcessors() * 3;
+    /**
+     * Parallelism of the fork/join pool running providers declared with executor = CPU
+     */
+    private int cpuThreadNumber = Runtime.getRuntime().availableProcessors();
     /**
      * The size of the queue that holds the task to be executed
      */
@@ -35,5 +46,49 @@ public class AysncProperties {
      * Ignore exception thrown by asynchronous execution, method returns null value
      */
     private boolean ignoreException = false;
+    /**
+     * Query engine, latch: pool threads wait for their dependencies, future: dependencies are composed as CompletableFuture
+     */
+    private EngineType engine = EngineType.LATCH;
+    /**
+     * Executor of provider invocations, platform: fixed thread pool, virtual: one virtual thread per invocation (JDK 21+)
+     */
+    private ExecutorType executor = ExecutorType.PLATFORM;
+    /**
+     * Max concurrent invocations of one provider in virtual executor mode
+     */
+    private int providerConcurrency = 256;
+    /**
+     * Per provider override of providerConcurrency, keyed by provider name
+     */
+    private Map<String, Integer> providerConcurrencyLimits = new HashMap<>();
+    /**
+     * Concurrent root queries of an idempotent provider with equal invoke parameters share one in-flight execution
+     */
+    private boolean singleFlight = false;
+    /**
+     * Record an execution trace of every query and pass it to the QueryTraceListener beans
+     */
+    private boolean trace = false;
+    /**
+     * Shed dependency tasks whose estimated queue wait exceeds their deadline, platform executor only
+     */
+    private boolean admissionControl = false;
+    /**
+     * Run the last dependency of each provider on the consumer's thread instead of the pool
+     */
+    private boolean inlineLastDepend = false;
+    /**
+     * Max hedged invocations of a provider, as a percentage of its invocations
+     */
+    private int hedgeBudgetPercent = 10;
+    /**
+     * How shed dependency tasks are handled, caller_runs: run on the submitting thread, null: degrade to null, reject: fail
+     */
+    private ShedPolicy shedPolicy = ShedPolicy.CALLER_RUNS;
+    /**
+     * Only queries slower than this (ms) are logged by the slf4j trace listener
+     */
+    private long traceSlowThreshold = 0L;
 
 }
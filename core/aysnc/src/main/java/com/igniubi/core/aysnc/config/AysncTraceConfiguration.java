@@ -0,0 +1,36 @@
+package com.igniubi.core.aysnc.config;
+
+import brave.Tracing;
+import com.igniubi.core.aysnc.trace.BraveQueryTraceListener;
+import com.igniubi.core.aysnc.trace.Slf4jQueryTraceListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 开启igniubi.aysnc.spring.trace后注册的轨迹输出: 慢查询日志, classpath中有Brave时补录span
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "igniubi.aysnc.spring", name = "trace", havingValue = "true")
+public class AysncTraceConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public Slf4jQueryTraceListener slf4jQueryTraceListener(AysncProperties properties) {
+        return new Slf4jQueryTraceListener(properties.getTraceSlowThreshold());
+    }
+
+    @Configuration
+    @ConditionalOnClass(Tracing.class)
+    static class BraveTraceConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public BraveQueryTraceListener braveQueryTraceListener(ObjectProvider<Tracing> tracing) {
+            return new BraveQueryTraceListener(tracing);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.igniubi.core.aysnc.config;
+
+/**
+ * 查询引擎类型
+ */
+public enum EngineType {
+    /**
+     * 依赖提交到线程池, 调用线程通过CountDownLatch等待
+     */
+    LATCH,
+    /**
+     * 依赖组合为CompletableFuture, 工作线程不等待子provider
+     */
+    FUTURE
+}
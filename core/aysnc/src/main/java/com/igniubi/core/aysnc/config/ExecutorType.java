@@ -0,0 +1,15 @@
+package com.igniubi.core.aysnc.config;
+
+/**
+ * 聚合线程池类型
+ */
+public enum ExecutorType {
+    /**
+     * 固定大小的平台线程池
+     */
+    PLATFORM,
+    /**
+     * 每次provider调用使用一个虚拟线程, 需要JDK 21及以上
+     */
+    VIRTUAL
+}
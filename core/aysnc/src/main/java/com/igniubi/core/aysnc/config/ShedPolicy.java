@@ -0,0 +1,19 @@
+package com.igniubi.core.aysnc.config;
+
+/**
+ * 准入控制拒绝依赖任务时的处理方式
+ */
+public enum ShedPolicy {
+    /**
+     * 在提交依赖的线程上直接执行
+     */
+    CALLER_RUNS,
+    /**
+     * 依赖结果降级为null
+     */
+    NULL,
+    /**
+     * 抛出RejectedExecutionException, 按ignoreException处理
+     */
+    REJECT
+}
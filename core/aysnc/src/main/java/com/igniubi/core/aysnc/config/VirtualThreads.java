@@ -0,0 +1,32 @@
+package com.igniubi.core.aysnc.config;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 通过反射创建虚拟线程池, 使模块在JDK 8下仍可编译
+ */
+public class VirtualThreads {
+
+    /**
+     * 创建每个任务一个虚拟线程的线程池
+     *
+     * @param threadPrefix 线程名前缀
+     * @return 线程池
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor(String threadPrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, threadPrefix, 0L);
+            ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            Method factoryMethod = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) factoryMethod.invoke(null, threadFactory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("virtual thread executor requires JDK 21 or later, current: "
+                    + System.getProperty("java.version"), e);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.igniubi.core.aysnc.exception;
+
+/**
+ * provider在截止时间内没有完成
+ */
+public class AysncTimeoutException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String providerName;
+
+    public AysncTimeoutException(String providerName) {
+        super("data provider timeout, name: " + providerName);
+        this.providerName = providerName;
+    }
+
+    public String getProviderName() {
+        return providerName;
+    }
+}
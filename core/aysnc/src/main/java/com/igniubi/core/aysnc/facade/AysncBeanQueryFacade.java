@@ -1,9 +1,13 @@
 package com.igniubi.core.aysnc.facade;
 
+import com.igniubi.core.aysnc.cache.ProviderCacheStats;
 import com.igniubi.core.aysnc.func.MultipleArgumentsFunction;
+import com.igniubi.core.aysnc.stream.PartialResultListener;
+import com.igniubi.core.aysnc.trace.TracedResult;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public interface AysncBeanQueryFacade {
 
@@ -15,4 +19,23 @@ public interface AysncBeanQueryFacade {
 
     <T> T get( MultipleArgumentsFunction<T> multipleArgumentsFunction, Long timeout)
             throws InterruptedException, IllegalAccessException, InvocationTargetException;
+
+    <T> CompletableFuture<T> getAsync(String id, Map<String,Object> invokeParams, Class<T> clazz);
+
+    <T> CompletableFuture<T> getAsync(Map<String,Object> invokeParams, MultipleArgumentsFunction<T> multipleArgumentsFunction, Long timeout);
+
+    <T> CompletableFuture<T> getAsync(MultipleArgumentsFunction<T> multipleArgumentsFunction, Long timeout);
+
+    <T> TracedResult<T> getWithTrace(String id, Map<String,Object> invokeParams, Class<T> clazz)
+            throws InterruptedException, IllegalAccessException, InvocationTargetException;
+
+    <T> CompletableFuture<T> stream(String id, Map<String,Object> invokeParams, Class<T> clazz, PartialResultListener listener);
+
+    void invalidate(String id);
+
+    void invalidate(String id, Object... args);
+
+    void invalidateAll();
+
+    Map<String, ProviderCacheStats> getCacheStats();
 }
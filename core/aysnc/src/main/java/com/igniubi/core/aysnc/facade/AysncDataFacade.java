@@ -1,10 +1,14 @@
 package com.igniubi.core.aysnc.facade;
 
+import com.igniubi.core.aysnc.cache.ProviderCacheStats;
 import com.igniubi.core.aysnc.func.MultipleArgumentsFunction;
+import com.igniubi.core.aysnc.stream.PartialResultListener;
+import com.igniubi.core.aysnc.trace.TracedResult;
 import lombok.Setter;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public class AysncDataFacade {
 
@@ -30,4 +34,46 @@ public class AysncDataFacade {
             throws InterruptedException, IllegalAccessException, InvocationTargetException {
         return facade.get(multipleArgumentsFunction, timeout);
     }
+
+    //异步查询, 不阻塞调用线程, 异常通过future返回
+    public static <T> CompletableFuture<T> getAsync(String id, Map<String,Object> invokeParams, Class<T> clazz) {
+        return facade.getAsync(id, invokeParams, clazz);
+    }
+
+    public static <T> CompletableFuture<T> getAsync(Map<String,Object> invokeParams, MultipleArgumentsFunction<T> multipleArgumentsFunction, Long timeout) {
+        return facade.getAsync(invokeParams, multipleArgumentsFunction, timeout);
+    }
+
+    public static <T> CompletableFuture<T> getAsync(MultipleArgumentsFunction<T> multipleArgumentsFunction, Long timeout) {
+        return facade.getAsync(multipleArgumentsFunction, timeout);
+    }
+
+    //记录执行轨迹的查询, 返回结果和关键路径
+    public static <T> TracedResult<T> getWithTrace(String id, Map<String,Object> invokeParams, Class<T> clazz)
+            throws InterruptedException, IllegalAccessException, InvocationTargetException {
+        return facade.getWithTrace(id, invokeParams, clazz);
+    }
+
+    //流式查询, 根provider的每个依赖完成时回调listener, 可以先输出已完成的部分
+    public static <T> CompletableFuture<T> stream(String id, Map<String,Object> invokeParams, Class<T> clazz, PartialResultListener listener) {
+        return facade.stream(id, invokeParams, clazz, listener);
+    }
+
+    //清空provider的跨请求结果缓存
+    public static void invalidate(String id) {
+        facade.invalidate(id);
+    }
+
+    //清除provider指定调用参数的跨请求结果缓存, 按方法参数顺序传入调用参数, 依赖参数不需要传
+    public static void invalidate(String id, Object... args) {
+        facade.invalidate(id, args);
+    }
+
+    public static void invalidateAll() {
+        facade.invalidateAll();
+    }
+
+    public static Map<String, ProviderCacheStats> getCacheStats() {
+        return facade.getCacheStats();
+    }
 }
@@ -1,16 +1,17 @@
 package com.igniubi.core.aysnc.facade;
 
+import com.igniubi.core.aysnc.cache.ProviderCacheStats;
 import com.igniubi.core.aysnc.func.MultipleArgumentsFunction;
 import com.igniubi.core.aysnc.model.AysncProviderDefinition;
 import com.igniubi.core.aysnc.service.AysncDataQueryService;
-import com.igniubi.core.aysnc.utils.DefinitionUtils;
+import com.igniubi.core.aysnc.stream.PartialResultListener;
+import com.igniubi.core.aysnc.trace.TracedResult;
 import lombok.Setter;
 
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public class DefaultAysncBeanQueryFacade implements  AysncBeanQueryFacade{
 
@@ -29,54 +30,95 @@ public class DefaultAysncBeanQueryFacade implements  AysncBeanQueryFacade{
         }
 
         AysncProviderDefinition provider = aysncDataQueryService.getProvider(multipleArgumentsFunction);
-        Method applyMethod = provider.getMethod();
-        boolean accessible = applyMethod.isAccessible();
-        if(! accessible) {
-            applyMethod.setAccessible(true);
-        }
-        try {
-            @SuppressWarnings("unchecked")
-            T ret = (T) aysncDataQueryService.get(provider, invokeParams, applyMethod.getReturnType());
-            return ret;
-        } finally {
-            if(!accessible) {
-                applyMethod.setAccessible(accessible);
-            }
-        }
+        @SuppressWarnings("unchecked")
+        T ret = (T) aysncDataQueryService.get(provider, invokeParams, provider.getMethod().getReturnType());
+        return ret;
     }
 
     @Override
     public <T> T get(MultipleArgumentsFunction<T> multipleArgumentsFunction, Long timeout) throws InterruptedException, IllegalAccessException, InvocationTargetException {
-        Method[] methods = multipleArgumentsFunction.getClass().getMethods();
-        Method applyMethod = null;
-
-        for (Method method : methods) {
-            if(! Modifier.isStatic(method.getModifiers()) && ! method.isDefault()) {
-                applyMethod = method;
-                break;
-            }
-        }
+        AysncProviderDefinition provider = lambdaProvider(multipleArgumentsFunction);
+        @SuppressWarnings("unchecked")
+        T ret = (T) aysncDataQueryService.get(provider,  Collections.emptyMap(), provider.getMethod().getReturnType());
+        return ret;
+    }
 
-        if(applyMethod == null) {
-            throw new IllegalAccessException(multipleArgumentsFunction.getClass().getName());
+    @Override
+    public <T> CompletableFuture<T> getAsync(String id, Map<String, Object> invokeParams, Class<T> clazz) {
+        return aysncDataQueryService.getAsync(id, invokeParams, clazz);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> getAsync(Map<String, Object> invokeParams, MultipleArgumentsFunction<T> multipleArgumentsFunction, Long timeout) {
+        if(invokeParams == null) {
+            invokeParams = Collections.emptyMap();
         }
-        AysncProviderDefinition provider = DefinitionUtils.getProvideDefinition(applyMethod);
-        provider.setTarget(multipleArgumentsFunction);
-        provider.setName(multipleArgumentsFunction.getClass().getName());
-        provider.setUseCache(false);
-        applyMethod = provider.getMethod();
-        boolean accessible = applyMethod.isAccessible();
-        if(! accessible) {
-            applyMethod.setAccessible(true);
+        AysncProviderDefinition provider;
+        try {
+            provider = aysncDataQueryService.getProvider(multipleArgumentsFunction);
+        } catch (IllegalAccessException e) {
+            return failed(e);
         }
+        @SuppressWarnings("unchecked")
+        CompletableFuture<T> ret = (CompletableFuture<T>) aysncDataQueryService.getAsync(provider, invokeParams, provider.getMethod().getReturnType());
+        return ret;
+    }
+
+    @Override
+    public <T> CompletableFuture<T> getAsync(MultipleArgumentsFunction<T> multipleArgumentsFunction, Long timeout) {
+        AysncProviderDefinition provider;
         try {
-            @SuppressWarnings("unchecked")
-            T ret = (T) aysncDataQueryService.get(provider,  Collections.emptyMap(), applyMethod.getReturnType());
-            return ret;
-        } finally {
-            if(!accessible) {
-                applyMethod.setAccessible(accessible);
-            }
+            provider = lambdaProvider(multipleArgumentsFunction);
+        } catch (IllegalAccessException e) {
+            return failed(e);
         }
+        @SuppressWarnings("unchecked")
+        CompletableFuture<T> ret = (CompletableFuture<T>) aysncDataQueryService.getAsync(provider, Collections.emptyMap(), provider.getMethod().getReturnType());
+        return ret;
+    }
+
+    @Override
+    public <T> TracedResult<T> getWithTrace(String id, Map<String, Object> invokeParams, Class<T> clazz) throws InterruptedException, IllegalAccessException, InvocationTargetException {
+        return aysncDataQueryService.getWithTrace(id, invokeParams, clazz);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> stream(String id, Map<String, Object> invokeParams, Class<T> clazz, PartialResultListener listener) {
+        return aysncDataQueryService.stream(id, invokeParams, clazz, listener);
+    }
+
+    /**
+     * 不注册到仓库、不使用缓存的lambda provider
+     */
+    private AysncProviderDefinition lambdaProvider(MultipleArgumentsFunction<?> multipleArgumentsFunction) throws IllegalAccessException {
+        AysncProviderDefinition provider = aysncDataQueryService.getLambdaProvider(multipleArgumentsFunction);
+        provider.setUseCache(false);
+        return provider;
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable e) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+    }
+
+    @Override
+    public void invalidate(String id) {
+        aysncDataQueryService.invalidate(id);
+    }
+
+    @Override
+    public void invalidate(String id, Object... args) {
+        aysncDataQueryService.invalidate(id, args);
+    }
+
+    @Override
+    public void invalidateAll() {
+        aysncDataQueryService.invalidateAll();
+    }
+
+    @Override
+    public Map<String, ProviderCacheStats> getCacheStats() {
+        return aysncDataQueryService.getCacheStats();
     }
 }
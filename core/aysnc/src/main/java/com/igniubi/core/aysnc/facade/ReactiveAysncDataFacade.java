@@ -0,0 +1,43 @@
+package com.igniubi.core.aysnc.facade;
+
+import com.igniubi.core.aysnc.func.MultipleArgumentsFunction;
+import com.igniubi.core.aysnc.stream.PartialResult;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+
+/**
+ * AysncDataFacade的Mono/Flux适配, 订阅时才发起查询, 需要classpath中有reactor-core
+ */
+public class ReactiveAysncDataFacade {
+
+    public static <T> Mono<T> get(String id, Map<String,Object> invokeParams, Class<T> clazz) {
+        return Mono.defer(() -> Mono.fromFuture(AysncDataFacade.getAsync(id, invokeParams, clazz)));
+    }
+
+    public static <T> Mono<T> get(Map<String,Object> invokeParams, MultipleArgumentsFunction<T> multipleArgumentsFunction, Long timeout) {
+        return Mono.defer(() -> Mono.fromFuture(AysncDataFacade.getAsync(invokeParams, multipleArgumentsFunction, timeout)));
+    }
+
+    public static <T> Mono<T> get(MultipleArgumentsFunction<T> multipleArgumentsFunction, Long timeout) {
+        return Mono.defer(() -> Mono.fromFuture(AysncDataFacade.getAsync(multipleArgumentsFunction, timeout)));
+    }
+
+    /**
+     * 流式查询, 根provider的依赖按完成顺序发出, 最后发出根provider的结果
+     */
+    public static Flux<PartialResult> stream(String id, Map<String,Object> invokeParams) {
+        return Flux.create(sink -> AysncDataFacade.stream(id, invokeParams, Object.class,
+                (providerName, value) -> sink.next(new PartialResult(providerName, value, false)))
+                .whenComplete((value, e) -> {
+                    if (e != null) {
+                        sink.error(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                    } else {
+                        sink.next(new PartialResult(id, value, true));
+                        sink.complete();
+                    }
+                }));
+    }
+}
@@ -0,0 +1,182 @@
+package com.igniubi.core.aysnc.index;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 编译期生成的provider索引, 每行一个provider:
+ * name \t 声明类 \t 方法名 \t 参数类型(逗号分隔) \t 依赖的provider(逗号分隔)
+ */
+public class AysncProviderIndex {
+
+    public static final String LOCATION = "META-INF/igniubi/aysnc-providers.index";
+
+    private static final String SEPARATOR = "\t";
+
+    private static final String LIST_SEPARATOR = ",";
+
+    public static String format(Entry entry) {
+        return entry.name + SEPARATOR + entry.className + SEPARATOR + entry.methodName + SEPARATOR
+                + String.join(LIST_SEPARATOR, entry.parameterTypes) + SEPARATOR + String.join(LIST_SEPARATOR, entry.depends);
+    }
+
+    public static Entry parse(String line) {
+        return parse(line, null);
+    }
+
+    private static Entry parse(String line, String root) {
+        String[] fields = line.split(SEPARATOR, -1);
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("illegal aysnc provider index line: " + line);
+        }
+        return new Entry(fields[0], fields[1], fields[2], split(fields[3]), split(fields[4]), root);
+    }
+
+    /**
+     * 读取classpath中所有jar的索引
+     *
+     * @param classLoader 类加载器
+     * @return 索引条目, 没有索引时为空
+     */
+    public static List<Entry> load(ClassLoader classLoader) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        Enumeration<URL> resources = classLoader.getResources(LOCATION);
+        while (resources.hasMoreElements()) {
+            URL url = resources.nextElement();
+            String root = indexRoot(url);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (! line.trim().isEmpty()) {
+                        entries.add(parse(line, root));
+                    }
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * 带有索引的classpath根路径(目录或jar), 这些路径下的provider以索引为准, 其余路径仍需扫描
+     *
+     * @param classLoader 类加载器
+     * @return 按{@link #root(URL)}规范化的根路径
+     */
+    public static Set<String> indexedRoots(ClassLoader classLoader) throws IOException {
+        Set<String> roots = new HashSet<>();
+        Enumeration<URL> resources = classLoader.getResources(LOCATION);
+        while (resources.hasMoreElements()) {
+            roots.add(indexRoot(resources.nextElement()));
+        }
+        return roots;
+    }
+
+    /**
+     * 索引文件所在的classpath根路径
+     */
+    private static String indexRoot(URL index) {
+        String url = index.toExternalForm();
+        return root(url.substring(0, url.length() - LOCATION.length()));
+    }
+
+    /**
+     * classpath根路径的规范形式, jar统一为jar文件本身的URL
+     */
+    public static String root(URL url) {
+        return root(url.toExternalForm());
+    }
+
+    private static String root(String url) {
+        if (url.startsWith("jar:") && url.endsWith("!/")) {
+            return url.substring("jar:".length(), url.length() - "!/".length());
+        }
+        return url;
+    }
+
+    /**
+     * 按方法名和参数类型找到索引条目对应的方法
+     */
+    public static Method resolve(Entry entry, ClassLoader classLoader) throws ClassNotFoundException, NoSuchMethodException {
+        Class<?> clazz = Class.forName(entry.className, false, classLoader);
+        for (Method method : clazz.getDeclaredMethods()) {
+            if (method.getName().equals(entry.methodName)
+                    && Arrays.equals(typeNames(method.getParameterTypes()), entry.parameterTypes)) {
+                return method;
+            }
+        }
+        throw new NoSuchMethodException(entry.className + "." + entry.methodName);
+    }
+
+    /**
+     * 参数类型的名称, 与编译期擦除后的类型名一致, 内部类统一用'.'分隔
+     */
+    public static String typeName(String name) {
+        return name.replace('$', '.');
+    }
+
+    private static String[] typeNames(Class<?>[] types) {
+        String[] names = new String[types.length];
+        for (int i = 0; i < types.length; i++) {
+            names[i] = typeName(types[i].getTypeName());
+        }
+        return names;
+    }
+
+    private static String[] split(String field) {
+        return field.isEmpty() ? new String[0] : field.split(LIST_SEPARATOR);
+    }
+
+    public static class Entry {
+        private final String name;
+        private final String className;
+        private final String methodName;
+        private final String[] parameterTypes;
+        private final String[] depends;
+        private final String root;
+
+        public Entry(String name, String className, String methodName, String[] parameterTypes, String[] depends) {
+            this(name, className, methodName, parameterTypes, depends, null);
+        }
+
+        private Entry(String name, String className, String methodName, String[] parameterTypes, String[] depends, String root) {
+            this.name = name;
+            this.className = className;
+            this.methodName = methodName;
+            this.parameterTypes = parameterTypes;
+            this.depends = depends;
+            this.root = root;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        public String getMethodName() {
+            return methodName;
+        }
+
+        public String[] getParameterTypes() {
+            return parameterTypes;
+        }
+
+        public String[] getDepends() {
+            return depends;
+        }
+
+        /**
+         * 条目所在索引的classpath根路径, 不是从classpath读取的条目为null
+         */
+        public String getRoot() {
+            return root;
+        }
+    }
+}
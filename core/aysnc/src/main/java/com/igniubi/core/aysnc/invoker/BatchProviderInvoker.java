@@ -0,0 +1,206 @@
+package com.igniubi.core.aysnc.invoker;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * 批量provider调用器, 以单个key调用, 时间窗口或数量达到上限时合并为一次批量调用.
+ * 绑定调度线程池后批量调用在调度线程池上执行并完成所有等待方, 调用方只在自己的截止时间内等待;
+ * 未绑定时由打开批次的线程等待窗口并执行批量调用
+ */
+public class BatchProviderInvoker implements ProviderInvoker {
+
+    private final ProviderInvoker delegate;
+
+    /**
+     * 批量参数是否需要Set, 否则传入List
+     */
+    private final boolean setParameter;
+
+    private final int batchSize;
+
+    private final long windowNanos;
+
+    /**
+     * 每个target正在收集key的批次, 不同target之间互不阻塞
+     */
+    private final ConcurrentHashMap<Target, Batch> collecting = new ConcurrentHashMap<>();
+
+    /**
+     * 关闭批次和执行批量调用的线程池
+     */
+    private volatile ScheduledExecutorService scheduler;
+
+    public BatchProviderInvoker(ProviderInvoker delegate, Class<?> parameterType, int batchSize, long windowMillis) {
+        this.delegate = delegate;
+        this.setParameter = ! parameterType.isAssignableFrom(ArrayList.class);
+        this.batchSize = batchSize;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+    }
+
+    /**
+     * 绑定调度线程池, 之后窗口到期和批量调用都不占用调用方线程
+     */
+    public void bind(ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public Object invoke(Object target, Object[] args) throws InvocationTargetException {
+        try {
+            return add(target, args[0]).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InvocationTargetException(e);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    @Override
+    public Object invoke(Object target, Object[] args, long deadline) throws InvocationTargetException, TimeoutException {
+        CompletableFuture<Object> result = add(target, args[0]);
+        try {
+            return result.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InvocationTargetException(e);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    /**
+     * 把key加入target当前的批次, 返回该key的结果
+     */
+    private CompletableFuture<Object> add(Object target, Object key) {
+        Target batchTarget = new Target(target);
+        while (true) {
+            Batch batch = collecting.get(batchTarget);
+            boolean opened = false;
+            if (batch == null) {
+                Batch created = new Batch();
+                batch = collecting.putIfAbsent(batchTarget, created);
+                if (batch == null) {
+                    batch = created;
+                    opened = true;
+                }
+            }
+            CompletableFuture<Object> result;
+            boolean full;
+            synchronized (batch) {
+                if (batch.closed) {
+                    /* 批次已关闭, 等它从collecting中移除后重新加入 */
+                    collecting.remove(batchTarget, batch);
+                    continue;
+                }
+                result = batch.keys.computeIfAbsent(key, k -> new CompletableFuture<>());
+                full = batch.keys.size() >= batchSize;
+            }
+            if (full) {
+                close(batchTarget, batch);
+            } else if (opened) {
+                open(batchTarget, batch);
+            }
+            return result;
+        }
+    }
+
+    private void open(Target target, Batch batch) {
+        ScheduledExecutorService scheduler = this.scheduler;
+        if (scheduler != null) {
+            try {
+                scheduler.schedule(() -> close(target, batch), windowNanos, TimeUnit.NANOSECONDS);
+                return;
+            } catch (RejectedExecutionException e) {
+                /* 调度线程池已关闭, 由当前线程执行 */
+            }
+        }
+        try {
+            batch.full.await(windowNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        close(target, batch);
+    }
+
+    /**
+     * 关闭批次并执行批量调用, 同一个批次只执行一次
+     */
+    private void close(Target target, Batch batch) {
+        synchronized (batch) {
+            if (batch.closed) {
+                return;
+            }
+            batch.closed = true;
+        }
+        collecting.remove(target, batch);
+        batch.full.countDown();
+        ScheduledExecutorService scheduler = this.scheduler;
+        if (scheduler != null) {
+            try {
+                scheduler.execute(() -> dispatch(target.target, batch));
+                return;
+            } catch (RejectedExecutionException e) {
+                /* 调度线程池已关闭, 由当前线程执行 */
+            }
+        }
+        dispatch(target.target, batch);
+    }
+
+    private void dispatch(Object target, Batch batch) {
+        Collection<Object> keys = setParameter
+                ? new LinkedHashSet<>(batch.keys.keySet()) : new ArrayList<>(batch.keys.keySet());
+        try {
+            Map<?, ?> values = (Map<?, ?>) delegate.invoke(target, new Object[]{keys});
+            for (Map.Entry<Object, CompletableFuture<Object>> entry : batch.keys.entrySet()) {
+                entry.getValue().complete(values == null ? null : values.get(entry.getKey()));
+            }
+        } catch (Throwable e) {
+            for (CompletableFuture<Object> future : batch.keys.values()) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    private static InvocationTargetException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        return cause instanceof InvocationTargetException
+                ? (InvocationTargetException) cause : new InvocationTargetException(cause);
+    }
+
+    /**
+     * 按引用区分target, 静态方法的target为null
+     */
+    private static final class Target {
+
+        private final Object target;
+
+        private Target(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Target && ((Target) o).target == target;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(target);
+        }
+    }
+
+    /**
+     * 一个批次收集到的key, 只在持有批次的锁且未关闭时修改, 关闭后只读
+     */
+    private static class Batch {
+
+        private final Map<Object, CompletableFuture<Object>> keys = new LinkedHashMap<>();
+
+        private final CountDownLatch full = new CountDownLatch(1);
+
+        private boolean closed;
+    }
+}
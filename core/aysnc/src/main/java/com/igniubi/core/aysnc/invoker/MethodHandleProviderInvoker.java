@@ -0,0 +1,46 @@
+package com.igniubi.core.aysnc.invoker;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * 基于MethodHandle的调用器, 访问检查和参数适配只在创建时做一次,
+ * 调用时不再走Method.invoke的反射路径
+ */
+public class MethodHandleProviderInvoker implements ProviderInvoker {
+
+    private final MethodHandle handle;
+
+    public MethodHandleProviderInvoker(Method method) {
+        if (!method.isAccessible()) {
+            method.setAccessible(true);
+        }
+        MethodHandle methodHandle;
+        try {
+            methodHandle = MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("can not access data provider method: " + method, e);
+        }
+        if (Modifier.isStatic(method.getModifiers())) {
+            /* 静态方法忽略target, 统一成 (target, args) 的调用形式 */
+            methodHandle = MethodHandles.dropArguments(methodHandle, 0, Object.class);
+        }
+        int parameterCount = method.getParameterCount();
+        this.handle = methodHandle
+                .asType(MethodType.genericMethodType(parameterCount + 1))
+                .asSpreader(Object[].class, parameterCount);
+    }
+
+    @Override
+    public Object invoke(Object target, Object[] args) throws InvocationTargetException {
+        try {
+            return (Object) handle.invokeExact(target, args);
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.igniubi.core.aysnc.invoker;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * provider方法调用器, 在provider注册时创建一次
+ */
+public interface ProviderInvoker {
+
+    /**
+     * 调用provider方法
+     *
+     * @param target 方法所属对象, 静态方法可以为null
+     * @param args   方法参数
+     * @return 方法返回值
+     * @throws InvocationTargetException provider方法抛出的异常
+     */
+    Object invoke(Object target, Object[] args) throws InvocationTargetException;
+
+    /**
+     * 在截止时间内调用provider方法, 只有需要等待其他调用的调用器(如批量)使用截止时间
+     *
+     * @param deadline 截止时间, System.nanoTime()
+     * @throws TimeoutException 截止时间前没有拿到结果
+     */
+    default Object invoke(Object target, Object[] args, long deadline) throws InvocationTargetException, TimeoutException {
+        return invoke(target, args);
+    }
+}
@@ -0,0 +1,80 @@
+package com.igniubi.core.aysnc.metrics;
+
+import com.igniubi.core.aysnc.model.AysncConsumerDefinition;
+import com.igniubi.core.aysnc.model.AysncProviderDefinition;
+import com.igniubi.core.aysnc.repository.AysncProviderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * actuator端点 /actuator/aysnc, 输出provider依赖图以及每个provider当前的p50/p99
+ */
+@Endpoint(id = "aysnc")
+public class AysncEndpoint {
+
+    private final AysncProviderRepository repository;
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public AysncEndpoint(AysncProviderRepository repository, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.repository = repository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @ReadOperation
+    public Map<String, Object> providers() {
+        MeterRegistry registry = meterRegistry.getIfUnique();
+        Map<String, Object> providers = new TreeMap<>();
+        for (AysncProviderDefinition provider : repository.getAll()) {
+            Map<String, Object> node = new LinkedHashMap<>();
+            node.put("depends", provider.getDepends() == null ? Collections.emptyList()
+                    : provider.getDepends().stream().map(AysncConsumerDefinition::getName).distinct().collect(Collectors.toList()));
+            node.put("timeout", provider.getTimeout());
+            node.put("idempotent", provider.isIdempotent());
+            node.put("batch", provider.isBatch());
+            if (registry != null) {
+                node.put("execution", timer(registry, MicrometerAysncMetricsRecorder.EXECUTION, provider.getName()));
+                node.put("queueWait", timer(registry, MicrometerAysncMetricsRecorder.QUEUE_WAIT, provider.getName()));
+                node.put("timeouts", count(registry, MicrometerAysncMetricsRecorder.TIMEOUTS, provider.getName()));
+                node.put("hedges", count(registry, MicrometerAysncMetricsRecorder.HEDGES, provider.getName()));
+                node.put("rejections", count(registry, MicrometerAysncMetricsRecorder.REJECTIONS, provider.getName()));
+                node.put("exceptions", count(registry, MicrometerAysncMetricsRecorder.EXCEPTIONS, provider.getName()));
+                node.put("cacheHits", count(registry, MicrometerAysncMetricsRecorder.CACHE_HITS, provider.getName()));
+            }
+            providers.put(provider.getName(), node);
+        }
+        return providers;
+    }
+
+    private Map<String, Object> timer(MeterRegistry registry, String name, String provider) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        Timer timer = registry.find(name).tag(MicrometerAysncMetricsRecorder.PROVIDER_TAG, provider).timer();
+        if (timer == null) {
+            result.put("count", 0);
+            return result;
+        }
+        result.put("count", timer.count());
+        result.put("meanMs", timer.mean(TimeUnit.MILLISECONDS));
+        for (ValueAtPercentile percentile : timer.takeSnapshot().percentileValues()) {
+            result.put("p" + Math.round(percentile.percentile() * 100) + "Ms", percentile.value(TimeUnit.MILLISECONDS));
+        }
+        return result;
+    }
+
+    private double count(MeterRegistry registry, String name, String provider) {
+        double count = 0;
+        for (Counter counter : registry.find(name).tag(MicrometerAysncMetricsRecorder.PROVIDER_TAG, provider).counters()) {
+            count += counter.count();
+        }
+        return count;
+    }
+}
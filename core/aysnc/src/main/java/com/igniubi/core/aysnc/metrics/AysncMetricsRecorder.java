@@ -0,0 +1,68 @@
+package com.igniubi.core.aysnc.metrics;
+
+/**
+ * 查询引擎的指标埋点, 未接入监控时使用{@link #NOOP}
+ */
+public interface AysncMetricsRecorder {
+
+    AysncMetricsRecorder NOOP = new AysncMetricsRecorder() {
+    };
+
+    /**
+     * 依赖任务在线程池队列中的等待时间
+     *
+     * @param provider provider name
+     * @param nanos    等待时间(纳秒)
+     */
+    default void recordQueueWait(String provider, long nanos) {
+    }
+
+    /**
+     * provider方法的执行时间
+     *
+     * @param provider provider name
+     * @param nanos    执行时间(纳秒)
+     * @param error    provider抛出的异常, 成功时为null
+     */
+    default void recordExecution(String provider, long nanos, Throwable error) {
+    }
+
+    default void recordTimeout(String provider) {
+    }
+
+    /**
+     * 发起了一次对冲调用
+     */
+    default void recordHedge(String provider) {
+    }
+
+    /**
+     * 依赖被准入控制拒绝
+     */
+    default void recordRejection(String provider) {
+    }
+
+    /**
+     * 命中缓存, 没有调用provider方法
+     *
+     * @param provider provider name
+     * @param cache    {@link #QUERY_CACHE}, {@link #RESULT_CACHE} 或 {@link #MATERIALIZED_CACHE}
+     */
+    default void recordCacheHit(String provider, String cache) {
+    }
+
+    /**
+     * 一次查询内的调用共享
+     */
+    String QUERY_CACHE = "query";
+
+    /**
+     * 跨请求结果缓存
+     */
+    String RESULT_CACHE = "result";
+
+    /**
+     * 物化图中未失效的节点
+     */
+    String MATERIALIZED_CACHE = "materialized";
+}
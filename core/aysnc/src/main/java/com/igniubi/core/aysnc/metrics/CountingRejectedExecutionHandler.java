@@ -0,0 +1,33 @@
+package com.igniubi.core.aysnc.metrics;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 统计线程池拒绝次数, 拒绝行为交给原有策略
+ */
+public class CountingRejectedExecutionHandler implements RejectedExecutionHandler {
+
+    private final RejectedExecutionHandler delegate;
+
+    private final LongAdder rejected = new LongAdder();
+
+    public CountingRejectedExecutionHandler() {
+        this(new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    public CountingRejectedExecutionHandler(RejectedExecutionHandler delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+        rejected.increment();
+        delegate.rejectedExecution(r, executor);
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+}
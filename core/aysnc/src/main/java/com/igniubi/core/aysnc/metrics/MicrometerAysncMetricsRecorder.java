@@ -0,0 +1,109 @@
+package com.igniubi.core.aysnc.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于Micrometer的指标, 按provider name打tag, meter按provider缓存避免每次调用重新构建
+ */
+public class MicrometerAysncMetricsRecorder implements AysncMetricsRecorder {
+
+    public static final String QUEUE_WAIT = "aysnc.provider.queue.wait";
+    public static final String EXECUTION = "aysnc.provider.execution";
+    public static final String TIMEOUTS = "aysnc.provider.timeouts";
+    public static final String HEDGES = "aysnc.provider.hedges";
+    public static final String REJECTIONS = "aysnc.provider.rejections";
+    public static final String EXCEPTIONS = "aysnc.provider.exceptions";
+    public static final String CACHE_HITS = "aysnc.provider.cache.hits";
+    public static final String PROVIDER_TAG = "provider";
+
+    private final MeterRegistry registry;
+
+    private final ConcurrentHashMap<String, ProviderMeters> meters = new ConcurrentHashMap<>();
+
+    public MicrometerAysncMetricsRecorder(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void recordQueueWait(String provider, long nanos) {
+        meters(provider).queueWait.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordExecution(String provider, long nanos, Throwable error) {
+        ProviderMeters providerMeters = meters(provider);
+        providerMeters.execution.record(nanos, TimeUnit.NANOSECONDS);
+        if (error != null) {
+            providerMeters.exceptions.increment();
+        }
+    }
+
+    @Override
+    public void recordTimeout(String provider) {
+        meters(provider).timeouts.increment();
+    }
+
+    @Override
+    public void recordHedge(String provider) {
+        meters(provider).hedges.increment();
+    }
+
+    @Override
+    public void recordRejection(String provider) {
+        meters(provider).rejections.increment();
+    }
+
+    @Override
+    public void recordCacheHit(String provider, String cache) {
+        ProviderMeters providerMeters = meters(provider);
+        if (RESULT_CACHE.equals(cache)) {
+            providerMeters.resultCacheHits.increment();
+        } else if (MATERIALIZED_CACHE.equals(cache)) {
+            providerMeters.materializedHits.increment();
+        } else {
+            providerMeters.queryCacheHits.increment();
+        }
+    }
+
+    private ProviderMeters meters(String provider) {
+        ProviderMeters providerMeters = meters.get(provider);
+        if (providerMeters == null) {
+            providerMeters = meters.computeIfAbsent(provider, ProviderMeters::new);
+        }
+        return providerMeters;
+    }
+
+    private class ProviderMeters {
+        private final Timer queueWait;
+        private final Timer execution;
+        private final Counter timeouts;
+        private final Counter rejections;
+        private final Counter hedges;
+        private final Counter exceptions;
+        private final Counter queryCacheHits;
+        private final Counter resultCacheHits;
+        private final Counter materializedHits;
+
+        private ProviderMeters(String provider) {
+            queueWait = Timer.builder(QUEUE_WAIT).tag(PROVIDER_TAG, provider)
+                    .publishPercentiles(0.5, 0.99).register(registry);
+            execution = Timer.builder(EXECUTION).tag(PROVIDER_TAG, provider)
+                    .publishPercentiles(0.5, 0.99).register(registry);
+            timeouts = Counter.builder(TIMEOUTS).tag(PROVIDER_TAG, provider).register(registry);
+            rejections = Counter.builder(REJECTIONS).tag(PROVIDER_TAG, provider).register(registry);
+            hedges = Counter.builder(HEDGES).tag(PROVIDER_TAG, provider).register(registry);
+            exceptions = Counter.builder(EXCEPTIONS).tag(PROVIDER_TAG, provider).register(registry);
+            queryCacheHits = Counter.builder(CACHE_HITS).tag(PROVIDER_TAG, provider)
+                    .tag("cache", QUERY_CACHE).register(registry);
+            resultCacheHits = Counter.builder(CACHE_HITS).tag(PROVIDER_TAG, provider)
+                    .tag("cache", RESULT_CACHE).register(registry);
+            materializedHits = Counter.builder(CACHE_HITS).tag(PROVIDER_TAG, provider)
+                    .tag("cache", MATERIALIZED_CACHE).register(registry);
+        }
+    }
+}
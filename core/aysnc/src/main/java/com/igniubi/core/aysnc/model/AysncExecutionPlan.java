@@ -0,0 +1,104 @@
+package com.igniubi.core.aysnc.model;
+
+import lombok.Getter;
+
+/**
+ * provider的执行计划, 启动时由provider定义编译而来, 编译后不再修改
+ * 查询时按槽位下标取值, 不再做字符串拼接、按名字查找和反射元数据遍历
+ */
+@Getter
+public final class AysncExecutionPlan {
+
+    /**
+     * 调用参数槽位在dependIndexes中的标记
+     */
+    public static final int INVOKE_PARAM_SLOT = -1;
+
+    private final AysncProviderDefinition provider;
+
+    /**
+     * 方法参数槽位对应的依赖下标, 调用参数槽位为 INVOKE_PARAM_SLOT
+     */
+    private final int[] dependIndexes;
+
+    /**
+     * 作为根查询时, 调用参数槽位对应的参数key
+     */
+    private final String[] paramKeys;
+
+    /**
+     * 参数槽位类型, 基本类型已转为包装类型
+     */
+    private final Class<?>[] argTypes;
+
+    private final String[] argNames;
+
+    private final Depend[] depends;
+
+    /**
+     * 整个依赖子图读取的调用参数key
+     */
+    private final String[] dependParamKeys;
+
+    /**
+     * 作为根查询时, 整张图读取的调用参数key, 决定了根查询结果
+     */
+    private final String[] inputKeys;
+
+    public AysncExecutionPlan(AysncProviderDefinition provider, int[] dependIndexes, String[] paramKeys,
+                              Class<?>[] argTypes, String[] argNames, Depend[] depends,
+                              String[] dependParamKeys, String[] inputKeys) {
+        this.provider = provider;
+        this.dependIndexes = dependIndexes;
+        this.paramKeys = paramKeys;
+        this.argTypes = argTypes;
+        this.argNames = argNames;
+        this.depends = depends;
+        this.dependParamKeys = dependParamKeys;
+        this.inputKeys = inputKeys;
+    }
+
+    /**
+     * 同一个计划绑定到另一个provider定义, 槽位和依赖共用, 用于lambda每次调用的定义
+     */
+    public AysncExecutionPlan bind(AysncProviderDefinition provider) {
+        return new AysncExecutionPlan(provider, dependIndexes, paramKeys, argTypes, argNames, depends,
+                dependParamKeys, inputKeys);
+    }
+
+    public boolean hasDepends() {
+        return depends.length > 0;
+    }
+
+    /**
+     * 依赖边: 已解析的子provider执行计划, 以及子provider在该依赖下读取的参数key(已做动态参数替换)
+     */
+    @Getter
+    public static final class Depend {
+
+        private final AysncConsumerDefinition consumer;
+
+        private final AysncExecutionPlan plan;
+
+        private final String[] paramKeys;
+
+        /**
+         * 经由该依赖边, 子provider及其依赖子图读取的调用参数key
+         */
+        private final String[] inputKeys;
+
+        private final Class<?> type;
+
+        private final boolean ignoreException;
+
+        public Depend(AysncConsumerDefinition consumer, AysncExecutionPlan plan, String[] paramKeys,
+                      String[] inputKeys, Class<?> type, boolean ignoreException) {
+            this.consumer = consumer;
+            this.plan = plan;
+            this.paramKeys = paramKeys;
+            this.inputKeys = inputKeys;
+            this.type = type;
+            this.ignoreException = ignoreException;
+        }
+    }
+}
@@ -1,20 +1,54 @@
 package com.igniubi.core.aysnc.model;
 
+import com.igniubi.core.aysnc.cache.MaterializedGraph;
+import com.igniubi.core.aysnc.cache.ProviderResultCache;
+import com.igniubi.core.aysnc.invoker.ProviderInvoker;
+import com.igniubi.core.aysnc.service.ProviderHedger;
 import lombok.Data;
 
 import java.lang.reflect.Method;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 @Data
 public class AysncProviderDefinition {
     private String name;
     private Method method;
     private Object target;
+    private ProviderInvoker invoker;
     private Long timeout;
     private List<AysncConsumerDefinition> depends;
     private List<InvokeParameterDefinition> params;
     private List<MethodArg> methodArgs;
     private boolean idempotent;
     private boolean useCache;
+    /**
+     * 批量provider, 调用时传入单个key
+     */
+    private boolean batch;
+    /**
+     * 作为依赖时在调用方线程执行, 只允许没有依赖的provider
+     */
+    private boolean inline;
+    /**
+     * 作为依赖时提交到的线程池, 为null时使用默认线程池
+     */
+    private ExecutorService executor;
+    /**
+     * 对冲调用策略, 未开启时为null
+     */
+    private ProviderHedger hedger;
+    /**
+     * 跨请求结果缓存, 未开启时为null
+     */
+    private ProviderResultCache resultCache;
+    /**
+     * 作为根查询时的物化图, 未开启时为null
+     */
+    private MaterializedGraph materializedGraph;
+    /**
+     * 编译后的执行计划
+     */
+    private AysncExecutionPlan plan;
 
 }
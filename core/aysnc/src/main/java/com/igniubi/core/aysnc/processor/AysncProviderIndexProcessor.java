@@ -0,0 +1,210 @@
+package com.igniubi.core.aysnc.processor;
+
+import com.igniubi.core.aysnc.index.AysncProviderIndex;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 编译期收集@AysncProvider方法, 生成{@link AysncProviderIndex#LOCATION}索引,
+ * 并检查本次编译内provider的重名和循环依赖, 启动时不再需要扫描classpath.
+ * 增量编译时与已有的索引合并, 保留没有重新编译且仍然存在的类的条目
+ */
+@SupportedAnnotationTypes(AysncProviderIndexProcessor.PROVIDER_ANNOTATION)
+public class AysncProviderIndexProcessor extends AbstractProcessor {
+
+    static final String PROVIDER_ANNOTATION = "com.igniubi.core.aysnc.annotation.AysncProvider";
+
+    private static final String CONSUMER_ANNOTATION = "com.igniubi.core.aysnc.annotation.AysncConsumer";
+
+    private final Map<String, AysncProviderIndex.Entry> entries = new TreeMap<>();
+
+    private final Map<String, Element> elements = new HashMap<>();
+
+    /**
+     * 本次编译的顶层类, 这些类的旧索引条目以本次收集的为准
+     */
+    private final Set<String> compiledTypes = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element root : roundEnv.getRootElements()) {
+            if (root instanceof TypeElement) {
+                compiledTypes.add(processingEnv.getElementUtils().getBinaryName((TypeElement) root).toString());
+            }
+        }
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.METHOD) {
+                    collect((ExecutableElement) element);
+                }
+            }
+        }
+        if (roundEnv.processingOver()) {
+            boolean existing = mergeExisting();
+            if (existing || ! entries.isEmpty()) {
+                checkCycle();
+                write();
+            }
+        }
+        return false;
+    }
+
+    private void collect(ExecutableElement method) {
+        String name = annotationName(method, PROVIDER_ANNOTATION);
+        if (name == null || name.isEmpty()) {
+            error(method, "data id must be not null!");
+            return;
+        }
+        if (entries.containsKey(name)) {
+            error(method, "Data providers with the same name are not allowed. dataId: " + name);
+            return;
+        }
+        TypeElement type = (TypeElement) method.getEnclosingElement();
+        List<String> parameterTypes = new ArrayList<>();
+        List<String> depends = new ArrayList<>();
+        for (VariableElement parameter : method.getParameters()) {
+            TypeMirror erasure = processingEnv.getTypeUtils().erasure(parameter.asType());
+            parameterTypes.add(AysncProviderIndex.typeName(erasure.toString()));
+            String depend = annotationName(parameter, CONSUMER_ANNOTATION);
+            if (depend != null && ! depend.isEmpty()) {
+                depends.add(depend);
+            }
+        }
+        entries.put(name, new AysncProviderIndex.Entry(name,
+                processingEnv.getElementUtils().getBinaryName(type).toString(), method.getSimpleName().toString(),
+                parameterTypes.toArray(new String[0]), depends.toArray(new String[0])));
+        elements.put(name, method);
+    }
+
+    /**
+     * 合并输出目录中已有的索引, 丢弃本次重新编译的类和已经删除的类的条目
+     *
+     * @return 是否存在旧索引
+     */
+    private boolean mergeExisting() {
+        List<AysncProviderIndex.Entry> existing = new ArrayList<>();
+        try {
+            FileObject file = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", AysncProviderIndex.LOCATION);
+            try (Reader reader = file.openReader(true); BufferedReader lines = new BufferedReader(reader)) {
+                String line;
+                while ((line = lines.readLine()) != null) {
+                    if (! line.trim().isEmpty()) {
+                        existing.add(AysncProviderIndex.parse(line));
+                    }
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            /* 没有旧索引或者无法读取, 按全量编译处理 */
+            return false;
+        }
+        for (AysncProviderIndex.Entry entry : existing) {
+            if (! entries.containsKey(entry.getName()) && ! isCompiled(entry.getClassName())
+                    && processingEnv.getElementUtils().getTypeElement(AysncProviderIndex.typeName(entry.getClassName())) != null) {
+                entries.put(entry.getName(), entry);
+            }
+        }
+        return true;
+    }
+
+    private boolean isCompiled(String className) {
+        int nested = className.indexOf('$');
+        return compiledTypes.contains(nested < 0 ? className : className.substring(0, nested));
+    }
+
+    /**
+     * 读取注解的value或name, 两者互为别名
+     */
+    private String annotationName(Element element, String annotationType) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (! ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationType)) {
+                continue;
+            }
+            String name = "";
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value : mirror.getElementValues().entrySet()) {
+                String key = value.getKey().getSimpleName().toString();
+                if (("value".equals(key) || "name".equals(key)) && ! value.getValue().getValue().toString().isEmpty()) {
+                    name = value.getValue().getValue().toString();
+                }
+            }
+            return name;
+        }
+        return null;
+    }
+
+    /**
+     * 只能检查本次编译内的依赖, 依赖其他jar中provider的边在启动时检查
+     */
+    private void checkCycle() {
+        Map<String, Integer> visitStatus = new HashMap<>(entries.size() * 2);
+        Deque<String> path = new ArrayDeque<>();
+        for (String name : entries.keySet()) {
+            if (! visitStatus.containsKey(name) && dfs(name, visitStatus, path)) {
+                return;
+            }
+        }
+    }
+
+    private boolean dfs(String name, Map<String, Integer> visitStatus, Deque<String> path) {
+        Integer status = visitStatus.get(name);
+        if (status != null) {
+            if (status == 1) {
+                List<String> cycle = new ArrayList<>(path);
+                Collections.reverse(cycle);
+                cycle = cycle.subList(cycle.indexOf(name), cycle.size());
+                error(elements.get(name), "There are loops in the dependency graph. Related nodes:" + cycle);
+                return true;
+            }
+            return false;
+        }
+        visitStatus.put(name, 1);
+        path.push(name);
+        for (String depend : entries.get(name).getDepends()) {
+            if (entries.containsKey(depend) && dfs(depend, visitStatus, path)) {
+                return true;
+            }
+        }
+        path.pop();
+        visitStatus.put(name, 2);
+        return false;
+    }
+
+    private void write() {
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                    AysncProviderIndex.LOCATION, elements.values().toArray(new Element[0]));
+            try (Writer writer = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (AysncProviderIndex.Entry entry : entries.values()) {
+                    writer.write(AysncProviderIndex.format(entry));
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "can not write aysnc provider index: " + e.getMessage());
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
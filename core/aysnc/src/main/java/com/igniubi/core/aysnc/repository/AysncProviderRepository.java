@@ -3,6 +3,8 @@ package com.igniubi.core.aysnc.repository;
 
 import com.igniubi.core.aysnc.model.AysncProviderDefinition;
 
+import java.util.Collection;
+
 /**
  */
 public interface AysncProviderRepository {
@@ -26,4 +28,10 @@ public interface AysncProviderRepository {
      * @return 是否存在provider
      */
     boolean contains(String name);
+
+    /**
+     * 获取所有provider
+     * @return 已注册的provider
+     */
+    Collection<AysncProviderDefinition> getAll();
 }
@@ -2,6 +2,8 @@ package com.igniubi.core.aysnc.repository;
 
 import com.igniubi.core.aysnc.model.AysncProviderDefinition;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class DefaultAysncProviderRepository implements AysncProviderRepository {
@@ -22,4 +24,9 @@ public class DefaultAysncProviderRepository implements AysncProviderRepository {
     public boolean contains(String name) {
         return providerMap.containsKey(name);
     }
+
+    @Override
+    public Collection<AysncProviderDefinition> getAll() {
+        return Collections.unmodifiableCollection(providerMap.values());
+    }
 }
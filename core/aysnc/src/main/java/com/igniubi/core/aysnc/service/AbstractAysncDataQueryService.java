@@ -0,0 +1,915 @@
+package com.igniubi.core.aysnc.service;
+
+import com.igniubi.core.aysnc.cache.MaterializedGraph;
+import com.igniubi.core.aysnc.cache.MaterializedGraphManager;
+import com.igniubi.core.aysnc.cache.ProviderCacheStats;
+import com.igniubi.core.aysnc.cache.ProviderResultCache;
+import com.igniubi.core.aysnc.cache.ProviderResultCacheManager;
+import com.igniubi.core.aysnc.config.RuntimeSettings;
+import com.igniubi.core.aysnc.exception.AysncTimeoutException;
+import com.igniubi.core.aysnc.func.MultipleArgumentsFunction;
+import com.igniubi.core.aysnc.metrics.AysncMetricsRecorder;
+import com.igniubi.core.aysnc.model.*;
+import com.igniubi.core.aysnc.repository.AysncProviderRepository;
+import com.igniubi.core.aysnc.stream.PartialResultListener;
+import com.igniubi.core.aysnc.trace.QueryTrace;
+import com.igniubi.core.aysnc.trace.QueryTraceListener;
+import com.igniubi.core.aysnc.trace.TraceNode;
+import com.igniubi.core.aysnc.trace.TracedResult;
+import com.igniubi.core.aysnc.utils.DefinitionUtils;
+import com.igniubi.core.aysnc.utils.ExecutionPlanUtils;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationContext;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * 查询引擎公共部分: provider参数拼装、调用、查询上下文缓存
+ * 具体的依赖调度方式由子类实现
+ */
+@Slf4j
+public abstract class AbstractAysncDataQueryService implements AysncDataQueryService {
+
+    @Setter
+    protected AysncProviderRepository repository;
+
+    @Setter
+    protected ApplicationContext applicationContext;
+
+    @Setter
+    protected ExecutorService executorService;
+
+    /**
+     * 阻塞式引擎异步查询时等待根查询的线程池, 不能与依赖共用有界线程池, 否则等待中的根查询会占满线程
+     */
+    @Setter
+    protected Executor queryExecutor;
+
+    @Setter
+    protected RuntimeSettings runtimeSettings;
+
+    /**
+     * 虚拟线程模式下按provider限制并发, 平台线程池模式为null
+     */
+    @Setter
+    protected ProviderConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * 线程池的准入控制, 未开启时为null
+     */
+    @Setter
+    protected AdmissionController admissionController;
+
+    /**
+     * 最后一个依赖在当前线程执行, 不提交到线程池
+     */
+    @Setter
+    protected boolean inlineLastDepend;
+
+    @Setter
+    protected ProviderResultCacheManager resultCacheManager;
+
+    @Setter
+    protected MaterializedGraphManager materializedGraphManager;
+
+    /**
+     * 合并并发的相同根查询
+     */
+    @Setter
+    protected boolean singleFlight;
+
+    @Setter
+    protected AysncMetricsRecorder metricsRecorder = AysncMetricsRecorder.NOOP;
+
+    /**
+     * 记录每次查询的执行轨迹并回调traceListeners
+     */
+    @Setter
+    protected boolean traceEnabled;
+
+    @Setter
+    protected List<QueryTraceListener> traceListeners = Collections.emptyList();
+
+    /**
+     * 正在执行的根查询, 只在执行期间存在, 不是结果缓存
+     */
+    private final ConcurrentHashMap<InvokeSignature, CompletableFuture<Object>> inFlightQueries = new ConcurrentHashMap<>();
+
+
+    @Override
+    public <T> T get(String name, Map<String, Object> invokeParams, Class<T> resultType) throws InterruptedException, InvocationTargetException, IllegalAccessException {
+        return get(repository.get(name), invokeParams, resultType);
+    }
+
+    @Override
+    public <T> T get(AysncProviderDefinition provider, Map<String, Object> invokeParams, Class<T> resultType)
+            throws InterruptedException, InvocationTargetException, IllegalAccessException {
+        return get(provider, invokeParams, resultType, provider.isUseCache());
+    }
+
+    /**
+     * 幂等的根查询在执行期间合并相同参数的并发调用
+     */
+    @Override
+    public <T> T get(AysncProviderDefinition provider, Map<String, Object> invokeParams, Class<T> resultType, boolean useCache) throws InterruptedException, InvocationTargetException, IllegalAccessException {
+        AysncQueryContext queryContext = initQueryContext(provider);
+        queryContext.setUseCache(useCache);
+        if (! isSingleFlight(provider, useCache)) {
+            return execute(provider, invokeParams, resultType, queryContext);
+        }
+        InvokeSignature signature = querySignature(planOf(provider), invokeParams);
+        CompletableFuture<Object> query = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = inFlightQueries.putIfAbsent(signature, query);
+        if (inFlight != null) {
+            /* 合并的调用方按自己的截止时间等待, 不随卡住的首个调用一起挂起 */
+            long deadline = deadline(provider);
+            try {
+                return resultType.cast(inFlight.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                metricsRecorder.recordTimeout(provider.getName());
+                throw new AysncTimeoutException(provider.getName());
+            } catch (ExecutionException e) {
+                throwException(e.getCause());
+                return null;
+            }
+        }
+        try {
+            Object result = execute(provider, invokeParams, Object.class, queryContext);
+            query.complete(result);
+            return resultType.cast(result);
+        } catch (Throwable e) {
+            query.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightQueries.remove(signature, query);
+        }
+    }
+
+    /**
+     * 记录本次查询中每个provider的调用耗时和结果, 已有trace时沿用外层的trace
+     */
+    @Override
+    public <T> TracedResult<T> getWithTrace(String name, Map<String, Object> invokeParams, Class<T> resultType)
+            throws InterruptedException, InvocationTargetException, IllegalAccessException {
+        AysncProviderDefinition provider = repository.get(name);
+        AysncQueryContext queryContext = initQueryContext(provider);
+        if (queryContext.getTrace() == null) {
+            queryContext.setTrace(new QueryTrace(provider.getName()));
+        }
+        T value = execute(provider, invokeParams, resultType, queryContext);
+        return new TracedResult<>(value, queryContext.getTrace());
+    }
+
+    private <T> T execute(AysncProviderDefinition provider, Map<String, Object> invokeParams, Class<T> resultType,
+                          AysncQueryContext queryContext)
+            throws InterruptedException, InvocationTargetException, IllegalAccessException {
+        MaterializedGraph.Memo memo = memo(provider, planOf(provider).getInputKeys(), invokeParams, queryContext);
+        Throwable error = null;
+        try {
+            if (memo != null && memo.isClean()) {
+                return resultType.cast(materialized(provider, memo, traceRoot(queryContext)));
+            }
+            T value = doGet(provider, invokeParams, resultType, queryContext);
+            if (memo != null && ! queryContext.getDegraded().get()) {
+                memo.update(value);
+            }
+            return value;
+        } catch (Throwable e) {
+            error = e;
+            throw e;
+        } finally {
+            finishTrace(queryContext, error);
+        }
+    }
+
+    /**
+     * 结束根节点并回调listener, listener的异常不影响查询结果
+     */
+    protected void finishTrace(AysncQueryContext queryContext, Throwable error) {
+        QueryTrace trace = queryContext.getTrace();
+        if (trace == null) {
+            return;
+        }
+        trace.getRoot().end(error);
+        for (QueryTraceListener listener : traceListeners) {
+            try {
+                listener.onTrace(trace, error);
+            } catch (RuntimeException e) {
+                log.warn("query trace listener failed, listener: {}", listener.getClass().getName(), e);
+            }
+        }
+    }
+
+    /**
+     * 开启trace时返回根节点
+     */
+    protected TraceNode traceRoot(AysncQueryContext queryContext) {
+        return queryContext.getTrace() == null ? null : queryContext.getTrace().getRoot();
+    }
+
+    protected boolean isSingleFlight(AysncProviderDefinition provider, boolean useCache) {
+        return singleFlight && useCache && provider.isIdempotent();
+    }
+
+    /**
+     * 根查询的签名: 根provider方法加上整张图读取的调用参数值
+     */
+    protected InvokeSignature querySignature(AysncExecutionPlan plan, Map<String, Object> invokeParams) {
+        String[] inputKeys = plan.getInputKeys();
+        Object[] inputs = new Object[inputKeys.length];
+        for (int i = 0; i < inputKeys.length; i++) {
+            inputs[i] = invokeParams.get(inputKeys[i]);
+        }
+        return new InvokeSignature(plan.getProvider().getMethod(), inputs);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> getAsync(String name, Map<String, Object> invokeParams, Class<T> resultType) {
+        AysncProviderDefinition provider = repository.get(name);
+        if (provider == null) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            future.completeExceptionally(new IllegalArgumentException("data provider not found, name: " + name));
+            return future;
+        }
+        return getAsync(provider, invokeParams, resultType);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> getAsync(AysncProviderDefinition provider, Map<String, Object> invokeParams, Class<T> resultType) {
+        return getAsync(provider, invokeParams, resultType, provider.isUseCache());
+    }
+
+    /**
+     * 阻塞式引擎的异步查询: 根查询在queryExecutor上等待, 需要完全不阻塞线程时使用future引擎
+     */
+    @Override
+    public <T> CompletableFuture<T> getAsync(AysncProviderDefinition provider, Map<String, Object> invokeParams,
+                                             Class<T> resultType, boolean useCache) {
+        return async(() -> get(provider, invokeParams, resultType, useCache));
+    }
+
+    /**
+     * 在queryExecutor上执行阻塞的根查询, 不使用CompletableFuture默认的公共线程池; 线程池拒绝时返回失败的future
+     */
+    protected <T> CompletableFuture<T> async(Callable<T> query) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            queryExecutor.execute(() -> {
+                try {
+                    future.complete(query.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    @Override
+    public <T> CompletableFuture<T> stream(String name, Map<String, Object> invokeParams, Class<T> resultType,
+                                           PartialResultListener listener) {
+        AysncProviderDefinition provider = repository.get(name);
+        if (provider == null) {
+            CompletableFuture<T> future = new CompletableFuture<>();
+            future.completeExceptionally(new IllegalArgumentException("data provider not found, name: " + name));
+            return future;
+        }
+        AysncQueryContext queryContext = initQueryContext(provider);
+        queryContext.setPartialResultListener(listener);
+        return doGetAsync(provider, invokeParams, queryContext).thenApply(resultType::cast);
+    }
+
+    /**
+     * 以给定的查询上下文异步执行一次根查询, 阻塞式引擎在queryExecutor上等待
+     */
+    protected CompletableFuture<Object> doGetAsync(AysncProviderDefinition provider, Map<String, Object> invokeParams,
+                                                   AysncQueryContext queryContext) {
+        return async(() -> execute(provider, invokeParams, Object.class, queryContext));
+    }
+
+    /**
+     * 开启物化图时节点的memo, 需要在计算节点之前获取, 未开启时为null
+     */
+    protected MaterializedGraph.Memo memo(AysncProviderDefinition provider, String[] inputKeys,
+                                          Map<String, Object> invokeParams, AysncQueryContext queryContext) {
+        MaterializedGraph graph = queryContext.getMaterializedGraph();
+        return graph == null ? null : graph.memo(provider, inputKeys, invokeParams);
+    }
+
+    /**
+     * 复用物化图中干净节点的结果, 节点的子图不再计算
+     */
+    protected Object materialized(AysncProviderDefinition provider, MaterializedGraph.Memo memo, TraceNode traceNode) {
+        metricsRecorder.recordCacheHit(provider.getName(), AysncMetricsRecorder.MATERIALIZED_CACHE);
+        if (traceNode != null) {
+            traceNode.invoked(true);
+        }
+        return memo.getValue();
+    }
+
+    /**
+     * 物化图中干净的依赖直接取值, 同样记录trace和回调流式查询
+     */
+    protected Object materializedDepend(AysncExecutionPlan.Depend depend, MaterializedGraph.Memo memo,
+                                        AysncQueryContext queryContext, TraceNode traceNode, boolean streaming) {
+        String name = depend.getConsumer().getName();
+        TraceNode dependNode = traceNode == null ? null : traceNode.child(name);
+        if (dependNode != null) {
+            dependNode.start();
+        }
+        Object value = materialized(depend.getPlan().getProvider(), memo, dependNode);
+        if (dependNode != null) {
+            dependNode.end(null);
+        }
+        if (streaming) {
+            emitPartial(queryContext, name, value);
+        }
+        return value;
+    }
+
+    /**
+     * 依赖是否需要回调流式查询的listener: 只回调根provider的直接依赖
+     */
+    protected boolean isStreaming(AysncProviderDefinition provider, AysncQueryContext queryContext) {
+        return queryContext.getPartialResultListener() != null && provider == queryContext.getRootProviderDefinition();
+    }
+
+    /**
+     * 回调流式查询的listener, listener的异常不影响查询结果
+     */
+    protected void emitPartial(AysncQueryContext queryContext, String providerName, Object value) {
+        try {
+            queryContext.getPartialResultListener().onPartial(providerName, value);
+        } catch (RuntimeException e) {
+            log.warn("partial result listener failed, provider: {}", providerName, e);
+        }
+    }
+
+    /**
+     * 异步根查询的合并, 由第一个调用方发起查询, 其余调用方共享同一个future
+     */
+    protected CompletableFuture<Object> singleFlight(AysncProviderDefinition provider, Map<String, Object> invokeParams,
+                                                     boolean useCache, Supplier<CompletableFuture<Object>> query) {
+        if (! isSingleFlight(provider, useCache)) {
+            return query.get();
+        }
+        InvokeSignature signature = querySignature(planOf(provider), invokeParams);
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = inFlightQueries.putIfAbsent(signature, future);
+        if (inFlight != null) {
+            return inFlight;
+        }
+        query.get().whenComplete((result, e) -> {
+            inFlightQueries.remove(signature, future);
+            if (e != null) {
+                future.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            } else {
+                future.complete(result);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 执行一次根查询, 由调用线程发起
+     *
+     * @param provider     根provider
+     * @param invokeParams 调用参数
+     * @param resultType   返回值类型
+     * @param queryContext 本次查询上下文
+     * @return 查询结果
+     */
+    protected abstract <T> T doGet(AysncProviderDefinition provider, Map<String, Object> invokeParams, Class<T> resultType,
+                                   AysncQueryContext queryContext)
+            throws InterruptedException, InvocationTargetException, IllegalAccessException;
+
+    /**
+     * 根provider的截止时间(System.nanoTime)
+     */
+    protected long deadline(AysncProviderDefinition provider) {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutOf(provider));
+    }
+
+    /**
+     * 依赖provider的截止时间, 不会晚于上层provider的截止时间
+     */
+    protected long deadline(AysncProviderDefinition provider, long parentDeadline) {
+        long deadline = deadline(provider);
+        return deadline - parentDeadline < 0 ? deadline : parentDeadline;
+    }
+
+    private long timeoutOf(AysncProviderDefinition provider) {
+        return provider.getTimeout() != null ? provider.getTimeout() : runtimeSettings.getTimeout();
+    }
+
+    /**
+     * provider作为依赖时提交到的线程池, 未指定时为默认线程池
+     */
+    protected ExecutorService executorOf(AysncProviderDefinition provider) {
+        return provider.getExecutor() != null ? provider.getExecutor() : executorService;
+    }
+
+    /**
+     * 依赖能否提交到默认线程池, 拒绝时计数. 准入控制只估算默认线程池的排队时间
+     */
+    protected boolean admit(String providerName, long deadline) {
+        if (admissionController == null || admissionController.admit(deadline)) {
+            return true;
+        }
+        metricsRecorder.recordRejection(providerName);
+        return false;
+    }
+
+    /**
+     * 依赖是否在当前线程执行: provider配置了inline, 或开启inlineLastDepend时的最后一个依赖.
+     * 内联的依赖不受截止时间中断, 完成后才检查其他依赖是否超时
+     */
+    protected boolean runInline(AysncExecutionPlan.Depend[] depends, int index) {
+        return depends[index].getPlan().getProvider().isInline()
+                || (inlineLastDepend && index == depends.length - 1);
+    }
+
+    /**
+     * 记录依赖任务占用线程池线程的时间
+     */
+    protected void recordService(long startTime) {
+        if (admissionController != null) {
+            admissionController.record(System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * 获取provider的执行计划, 启动时未编译的provider(如直接传入的定义)在此编译
+     */
+    protected AysncExecutionPlan planOf(AysncProviderDefinition provider) {
+        AysncExecutionPlan plan = provider.getPlan();
+        if (plan != null) {
+            return plan;
+        }
+        return ExecutionPlanUtils.compile(provider, repository, runtimeSettings.isIgnoreException());
+    }
+
+    /**
+     * 按执行计划的槽位拼凑依赖结果和invokeParams
+     *
+     * @param plan         执行计划
+     * @param dependValues 依赖结果, 与plan.getDepends()下标一致
+     * @param paramKeys    调用参数槽位对应的key
+     * @param invokeParams 调用参数
+     * @return 方法参数
+     */
+    protected Object[] buildArgs(AysncExecutionPlan plan, Object[] dependValues, String[] paramKeys,
+                                 Map<String, Object> invokeParams) {
+        int[] dependIndexes = plan.getDependIndexes();
+        Class<?>[] argTypes = plan.getArgTypes();
+        Object [] args = new Object[dependIndexes.length];
+        for (int i = 0 ; i < dependIndexes.length; i ++) {
+            args[i] = dependIndexes[i] == AysncExecutionPlan.INVOKE_PARAM_SLOT
+                    ? invokeParams.get(paramKeys[i]) : dependValues[dependIndexes[i]];
+            if (args[i] != null && ! argTypes[i].isInstance(args[i])) {
+                throw new IllegalArgumentException("param type not match, param:" + plan.getArgNames()[i]);
+            }
+        }
+        return args;
+    }
+
+    /**
+     * 调用provider方法, 在一次查询中，对于幂等且参数一致的调用只执行一次,
+     * 配置了cacheTtl的provider再查跨请求结果缓存
+     */
+    protected Object invokeProvider(AysncProviderDefinition provider, Object[] args, AysncQueryContext queryContext,
+                                    TraceNode traceNode)
+            throws InterruptedException, InvocationTargetException, IllegalAccessException {
+        InvokeSignature invokeSignature = new InvokeSignature(provider.getMethod(),args);
+        if (! isShared(provider, queryContext)) {
+            return cachedInvoke(provider, args, invokeSignature, queryContext, traceNode);
+        }
+        while (true) {
+            try {
+                return invokeShared(provider, args, invokeSignature, queryContext, traceNode, false).get();
+            } catch (ExecutionException e) {
+                if (! (e.getCause() instanceof SharedCallCancelledException)) {
+                    throwException(e.getCause());
+                    return null;
+                }
+            }
+        }
+    }
+
+    /**
+     * 同invokeProvider, 但等待其他依赖正在进行的相同调用时不阻塞当前线程
+     */
+    protected CompletableFuture<Object> invokeProviderAsync(AysncProviderDefinition provider, Object[] args,
+                                                            AysncQueryContext queryContext, TraceNode traceNode) {
+        InvokeSignature invokeSignature = new InvokeSignature(provider.getMethod(),args);
+        if (isShared(provider, queryContext)) {
+            CompletableFuture<Object> result = new CompletableFuture<>();
+            invokeShared(provider, args, invokeSignature, queryContext, traceNode, true).whenComplete((o, e) -> {
+                if (! (e instanceof SharedCallCancelledException)) {
+                    if (e == null) {
+                        result.complete(o);
+                    } else {
+                        result.completeExceptionally(e);
+                    }
+                    return;
+                }
+                /* 执行方被取消的线程已被中断, 在线程池上重新登记执行 */
+                try {
+                    executorOf(provider).execute(() -> invokeProviderAsync(provider, args, queryContext, traceNode)
+                            .whenComplete((value, error) -> {
+                                if (error == null) {
+                                    result.complete(value);
+                                } else {
+                                    result.completeExceptionally(error);
+                                }
+                            }));
+                } catch (RejectedExecutionException rejected) {
+                    result.completeExceptionally(rejected);
+                }
+            });
+            return result;
+        }
+        if (provider.getHedger() != null) {
+            return cachedInvokeAsync(provider, args, invokeSignature, queryContext, traceNode);
+        }
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        try {
+            call.complete(cachedInvoke(provider, args, invokeSignature, queryContext, traceNode));
+        } catch (Throwable e) {
+            call.completeExceptionally(e);
+        }
+        return call;
+    }
+
+    private boolean isShared(AysncProviderDefinition provider, AysncQueryContext queryContext) {
+        return provider.isIdempotent() && queryContext.isUseCache();
+    }
+
+    /**
+     * 第一个到达的调用方登记并执行, 其余依赖该调用的兄弟节点直接挂在同一个future上.
+     * 执行方因自己的上层超时被取消时, 取消登记并以SharedCallCancelledException通知等待方重新执行,
+     * 一个等待方的取消不会传给其他等待方
+     *
+     * @param async 对冲的provider以future方式执行, 不在当前线程等待
+     */
+    private CompletableFuture<Object> invokeShared(AysncProviderDefinition provider, Object[] args,
+                                                   InvokeSignature invokeSignature, AysncQueryContext queryContext,
+                                                   TraceNode traceNode, boolean async) {
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> running = queryContext.share(invokeSignature, call);
+        if (running != call) {
+            metricsRecorder.recordCacheHit(provider.getName(), AysncMetricsRecorder.QUERY_CACHE);
+            if (traceNode != null) {
+                traceNode.invoked(true);
+            }
+            return running;
+        }
+        if (async && provider.getHedger() != null) {
+            cachedInvokeAsync(provider, args, invokeSignature, queryContext, traceNode).whenComplete((o, e) -> {
+                if (e == null) {
+                    call.complete(o);
+                } else {
+                    call.completeExceptionally(e);
+                }
+            });
+            return call;
+        }
+        try {
+            call.complete(cachedInvoke(provider, args, invokeSignature, queryContext, traceNode));
+        } catch (Throwable e) {
+            if (! isInterrupted(e)) {
+                call.completeExceptionally(e);
+                return call;
+            }
+            queryContext.unshare(invokeSignature, call);
+            call.completeExceptionally(new SharedCallCancelledException());
+            CompletableFuture<Object> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+        return call;
+    }
+
+    /**
+     * 执行线程被中断(所在任务被取消)导致的失败
+     */
+    private static boolean isInterrupted(Throwable e) {
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof InterruptedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 共享调用的执行方被取消, 等待方需要重新执行
+     */
+    private static class SharedCallCancelledException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    private Object cachedInvoke(AysncProviderDefinition provider, Object[] args, InvokeSignature invokeSignature,
+                                AysncQueryContext queryContext, TraceNode traceNode)
+            throws InterruptedException, InvocationTargetException {
+        ProviderResultCache resultCache = provider.getResultCache();
+        if (resultCache == null || ! queryContext.isUseCache()) {
+            return tracedInvoke(provider, args, traceNode, queryContext.getDeadline());
+        }
+        ProviderResultCache.Entry entry = resultCache.get(invokeSignature);
+        if (entry != null) {
+            metricsRecorder.recordCacheHit(provider.getName(), AysncMetricsRecorder.RESULT_CACHE);
+            if (traceNode != null) {
+                traceNode.invoked(true);
+            }
+            return entry.getValue();
+        }
+        Object resultModel = tracedInvoke(provider, args, traceNode, queryContext.getDeadline());
+        resultCache.put(invokeSignature, resultModel);
+        return resultModel;
+    }
+
+    /**
+     * 同cachedInvoke, 用于对冲的provider, 调用以future方式完成
+     */
+    private CompletableFuture<Object> cachedInvokeAsync(AysncProviderDefinition provider, Object[] args,
+                                                        InvokeSignature invokeSignature, AysncQueryContext queryContext,
+                                                        TraceNode traceNode) {
+        ProviderResultCache resultCache = queryContext.isUseCache() ? provider.getResultCache() : null;
+        if (resultCache != null) {
+            ProviderResultCache.Entry entry = resultCache.get(invokeSignature);
+            if (entry != null) {
+                metricsRecorder.recordCacheHit(provider.getName(), AysncMetricsRecorder.RESULT_CACHE);
+                if (traceNode != null) {
+                    traceNode.invoked(true);
+                }
+                return CompletableFuture.completedFuture(entry.getValue());
+            }
+        }
+        if (traceNode != null) {
+            traceNode.invoked(false);
+        }
+        CompletableFuture<Object> call = hedgedInvokeAsync(provider, args, queryContext.getDeadline());
+        if (resultCache != null) {
+            call.thenAccept(value -> resultCache.put(invokeSignature, value));
+        }
+        return call;
+    }
+
+    private Object tracedInvoke(AysncProviderDefinition provider, Object[] args, TraceNode traceNode, long deadline)
+            throws InterruptedException, InvocationTargetException {
+        if (traceNode != null) {
+            traceNode.invoked(false);
+        }
+        return doInvoke(provider, args, deadline);
+    }
+
+    /**
+     * 虚拟线程模式下等待provider的并发许可, 截止时间内拿不到许可按超时处理
+     */
+    private Object doInvoke(AysncProviderDefinition provider, Object[] args, long deadline)
+            throws InterruptedException, InvocationTargetException {
+        if (concurrencyLimiter == null) {
+            return hedgedInvoke(provider, args, deadline);
+        }
+        Semaphore semaphore = concurrencyLimiter.get(provider.getName());
+        if (! semaphore.tryAcquire(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+            metricsRecorder.recordTimeout(provider.getName());
+            throw new AysncTimeoutException(provider.getName());
+        }
+        try {
+            return hedgedInvoke(provider, args, deadline);
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    /**
+     * 对冲调用的future版本, 默认在当前线程执行阻塞的对冲调用
+     */
+    protected CompletableFuture<Object> hedgedInvokeAsync(AysncProviderDefinition provider, Object[] args, long deadline) {
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        try {
+            call.complete(doInvoke(provider, args, deadline));
+        } catch (Throwable e) {
+            call.completeExceptionally(e);
+        }
+        return call;
+    }
+
+    /**
+     * 开启对冲的provider在线程池上执行, 超过对冲延迟未返回且预算允许时再发起一次,
+     * 取先完成的结果, 另一次调用被取消. 线程池没有空闲线程时不对冲, 在当前线程调用
+     */
+    private Object hedgedInvoke(AysncProviderDefinition provider, Object[] args, long deadline)
+            throws InterruptedException, InvocationTargetException {
+        ProviderHedger hedger = provider.getHedger();
+        if (hedger == null) {
+            return timedInvoke(provider, args, deadline);
+        }
+        long hedgeAfter = hedger.onCall();
+        ExecutorService executor = executorOf(provider);
+        if (hedgeAfter < 0 || ! hasIdleThread(executor)) {
+            return attempt(provider, args, deadline);
+        }
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        Future<?> primary = executor.submit(() -> attempt(provider, args, deadline, result));
+        Future<?> hedge = null;
+        try {
+            try {
+                return result.get(hedgeAfter, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (hasIdleThread(executor) && hedger.tryHedge()) {
+                    metricsRecorder.recordHedge(provider.getName());
+                    hedge = executor.submit(() -> attempt(provider, args, deadline, result));
+                }
+                return result.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof InvocationTargetException
+                    ? (InvocationTargetException) cause : new InvocationTargetException(cause);
+        } finally {
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * 对冲的每次调用都占用一个线程, 饱和的线程池上对冲只会让排队的依赖等得更久
+     */
+    protected static boolean hasIdleThread(ExecutorService executor) {
+        if (executor instanceof ThreadPoolExecutor) {
+            ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+            return pool.getQueue().isEmpty() && pool.getActiveCount() < pool.getMaximumPoolSize();
+        }
+        if (executor instanceof ForkJoinPool) {
+            ForkJoinPool pool = (ForkJoinPool) executor;
+            return ! pool.hasQueuedSubmissions() && pool.getActiveThreadCount() < pool.getParallelism();
+        }
+        return true;
+    }
+
+    protected void attempt(AysncProviderDefinition provider, Object[] args, long deadline, CompletableFuture<Object> result) {
+        try {
+            result.complete(attempt(provider, args, deadline));
+        } catch (Throwable e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    protected Object attempt(AysncProviderDefinition provider, Object[] args, long deadline) throws InvocationTargetException {
+        long start = System.nanoTime();
+        Object value = timedInvoke(provider, args, deadline);
+        provider.getHedger().record(System.nanoTime() - start);
+        return value;
+    }
+
+    /**
+     * @param deadline 本次查询的截止时间, 批量provider等待合并调用的结果不超过它
+     */
+    private Object timedInvoke(AysncProviderDefinition provider, Object[] args, long deadline) throws InvocationTargetException {
+        long start = System.nanoTime();
+        Throwable error = null;
+        try {
+            return provider.getInvoker().invoke(resolveTarget(provider), args, deadline);
+        } catch (TimeoutException e) {
+            metricsRecorder.recordTimeout(provider.getName());
+            AysncTimeoutException timeout = new AysncTimeoutException(provider.getName());
+            error = timeout;
+            throw timeout;
+        } catch (InvocationTargetException | RuntimeException e) {
+            error = e;
+            throw e;
+        } finally {
+            metricsRecorder.recordExecution(provider.getName(), System.nanoTime() - start, error);
+        }
+    }
+
+    /**
+     * provider的目标对象在容器启动完成后已绑定, 这里只处理启动后才注册或未能绑定的provider
+     */
+    protected Object resolveTarget(AysncProviderDefinition provider) {
+        Object target = provider.getTarget();
+        if (target == null && ! Modifier.isStatic(provider.getMethod().getModifiers())) {
+            target = applicationContext.getBean(provider.getMethod().getDeclaringClass());
+            provider.setTarget(target);
+        }
+        return target;
+    }
+
+    protected void throwException(Throwable cause)  throws InterruptedException,
+            InvocationTargetException, IllegalAccessException  {
+        if (cause instanceof InterruptedException) {
+            throw (InterruptedException) cause;
+        } else if (cause instanceof  InvocationTargetException){
+            throw (InvocationTargetException) cause;
+        } else if (cause instanceof IllegalAccessException) {
+            throw (IllegalAccessException) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        } else {
+            throw new InvocationTargetException(cause);
+        }
+    }
+
+    protected AysncQueryContext initQueryContext(AysncProviderDefinition rootProvider) {
+        AysncQueryContext queryContext = new AysncQueryContext();
+        queryContext.setRootThread(Thread.currentThread());
+        queryContext.setRootProviderDefinition(rootProvider);
+        queryContext.setUseCache(rootProvider.isUseCache());
+        queryContext.setMaterializedGraph(rootProvider.getMaterializedGraph());
+        if (traceEnabled) {
+            queryContext.setTrace(new QueryTrace(rootProvider.getName()));
+        }
+        return queryContext;
+    }
+
+    @Override
+    public void invalidate(String name) {
+        ProviderResultCache resultCache = resultCacheManager.get(name);
+        if (resultCache != null) {
+            resultCache.invalidateAll();
+        }
+        materializedGraphManager.invalidate(name);
+    }
+
+    @Override
+    public void invalidate(String name, Object... args) {
+        AysncProviderDefinition provider = repository.get(name);
+        if (provider != null && provider.getResultCache() != null) {
+            AysncExecutionPlan plan = planOf(provider);
+            if (plan.hasDepends()) {
+                provider.getResultCache().invalidateIf(signature -> invokeParamsMatch(plan, signature.getArgs(), args));
+            } else {
+                provider.getResultCache().invalidate(new InvokeSignature(provider.getMethod(), args));
+            }
+        }
+        /* 物化图按provider失效, 不区分参数 */
+        materializedGraphManager.invalidate(name);
+    }
+
+    /**
+     * 缓存key的调用参数槽位是否依次等于args, 依赖参数槽位不参与比较
+     */
+    private static boolean invokeParamsMatch(AysncExecutionPlan plan, Object[] signatureArgs, Object[] args) {
+        int[] dependIndexes = plan.getDependIndexes();
+        int index = 0;
+        for (int i = 0; i < dependIndexes.length; i++) {
+            if (dependIndexes[i] != AysncExecutionPlan.INVOKE_PARAM_SLOT) {
+                continue;
+            }
+            if (index >= args.length || ! Objects.deepEquals(signatureArgs[i], args[index++])) {
+                return false;
+            }
+        }
+        return index == args.length;
+    }
+
+    @Override
+    public void invalidateAll() {
+        resultCacheManager.invalidateAll();
+        materializedGraphManager.invalidateAll();
+    }
+
+    @Override
+    public Map<String, ProviderCacheStats> getCacheStats() {
+        return resultCacheManager.stats();
+    }
+
+    @Override
+    public AysncProviderDefinition getProvider(MultipleArgumentsFunction<?> multipleArgumentsFunction) throws IllegalAccessException {
+        AysncProviderDefinition provider = repository.get(multipleArgumentsFunction.getClass().getName());
+        if(provider != null) {
+            return provider;
+        }
+        provider = DefinitionUtils.getLambdaProvideDefinition(multipleArgumentsFunction);
+        ExecutionPlanUtils.compile(provider, repository, runtimeSettings.isIgnoreException());
+        repository.put(provider);
+        return provider;
+    }
+
+    @Override
+    public AysncProviderDefinition getLambdaProvider(MultipleArgumentsFunction<?> multipleArgumentsFunction) throws IllegalAccessException {
+        return DefinitionUtils.getLambdaProvideDefinition(multipleArgumentsFunction,
+                template -> ExecutionPlanUtils.compile(template, repository, runtimeSettings.isIgnoreException()));
+    }
+}
@@ -0,0 +1,70 @@
+package com.igniubi.core.aysnc.service;
+
+import com.igniubi.core.aysnc.config.ShedPolicy;
+import lombok.Getter;
+
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 线程池前的准入控制: 按Little's law估算新任务的排队时间 = 排队任务数 * 平均执行时间 / 线程数,
+ * 估算结果超过依赖的截止时间时立即拒绝, 不让任务在队列里等到超时
+ */
+public class AdmissionController {
+
+    private final ThreadPoolExecutor executor;
+
+    @Getter
+    private final ShedPolicy shedPolicy;
+
+    /**
+     * 任务执行时间的指数移动平均(纳秒), 权重1/8
+     */
+    private final AtomicLong averageServiceNanos = new AtomicLong();
+
+    private final LongAdder shed = new LongAdder();
+
+    public AdmissionController(ThreadPoolExecutor executor, ShedPolicy shedPolicy) {
+        this.executor = executor;
+        this.shedPolicy = shedPolicy;
+    }
+
+    /**
+     * 判断任务能否在截止时间前开始执行, 拒绝时计数
+     *
+     * @param deadline 任务的截止时间(nanoTime)
+     * @return 是否提交到线程池
+     */
+    public boolean admit(long deadline) {
+        int threads = executor.getMaximumPoolSize();
+        if (executor.getActiveCount() < threads) {
+            return true;
+        }
+        long estimatedWait = (executor.getQueue().size() + 1L) * averageServiceNanos.get() / threads;
+        if (System.nanoTime() + estimatedWait - deadline <= 0) {
+            return true;
+        }
+        shed.increment();
+        return false;
+    }
+
+    /**
+     * 记录一次任务在线程池中的执行时间
+     */
+    public void record(long serviceNanos) {
+        long average;
+        do {
+            average = averageServiceNanos.get();
+        } while (! averageServiceNanos.compareAndSet(average,
+                average == 0 ? serviceNanos : average + ((serviceNanos - average) >> 3)));
+    }
+
+    public long getShedCount() {
+        return shed.sum();
+    }
+
+    public long getAverageServiceNanos() {
+        return averageServiceNanos.get();
+    }
+}
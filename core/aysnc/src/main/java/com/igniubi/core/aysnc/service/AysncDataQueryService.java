@@ -1,10 +1,14 @@
 package com.igniubi.core.aysnc.service;
 
+import com.igniubi.core.aysnc.cache.ProviderCacheStats;
 import com.igniubi.core.aysnc.func.MultipleArgumentsFunction;
 import com.igniubi.core.aysnc.model.AysncProviderDefinition;
+import com.igniubi.core.aysnc.stream.PartialResultListener;
+import com.igniubi.core.aysnc.trace.TracedResult;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public interface AysncDataQueryService {
     <T> T get(String name, Map<String,Object> invokeParams, Class<T> resultType)
@@ -16,6 +20,69 @@ public interface AysncDataQueryService {
     <T> T get(AysncProviderDefinition provider, Map<String,Object> invokeParams, Class<T> resultType, boolean useCache)
             throws InterruptedException, InvocationTargetException, IllegalAccessException;
 
+    /**
+     * 异步查询, 调用线程不等待provider执行, 异常通过future返回
+     *
+     * @param name         provider name
+     * @param invokeParams 调用参数
+     * @param resultType   返回值类型
+     * @return 查询结果的future
+     */
+    <T> CompletableFuture<T> getAsync(String name, Map<String,Object> invokeParams, Class<T> resultType);
+
+    <T> CompletableFuture<T> getAsync(AysncProviderDefinition provider, Map<String,Object> invokeParams, Class<T> resultType);
+
+    <T> CompletableFuture<T> getAsync(AysncProviderDefinition provider, Map<String,Object> invokeParams, Class<T> resultType,
+                                      boolean useCache);
+
+    /**
+     * 记录执行轨迹的查询, 不参与根查询合并, 用于定位单次慢查询的关键路径
+     *
+     * @param name         provider name
+     * @param invokeParams 调用参数
+     * @param resultType   返回值类型
+     * @return 查询结果和执行轨迹
+     */
+    <T> TracedResult<T> getWithTrace(String name, Map<String,Object> invokeParams, Class<T> resultType)
+            throws InterruptedException, InvocationTargetException, IllegalAccessException;
+
+    /**
+     * 流式查询, 根provider的每个依赖完成时回调listener, 不参与根查询合并
+     *
+     * @param name         provider name
+     * @param invokeParams 调用参数
+     * @param resultType   返回值类型
+     * @param listener     依赖完成回调
+     * @return 根provider结果的future
+     */
+    <T> CompletableFuture<T> stream(String name, Map<String,Object> invokeParams, Class<T> resultType,
+                                    PartialResultListener listener);
+
     AysncProviderDefinition getProvider(MultipleArgumentsFunction<?> function) throws IllegalAccessException;
 
+    /**
+     * 不注册到仓库的lambda provider, 每次返回绑定该lambda的新定义, 执行计划按lambda类只编译一次
+     */
+    AysncProviderDefinition getLambdaProvider(MultipleArgumentsFunction<?> function) throws IllegalAccessException;
+
+    /**
+     * 清空provider的跨请求结果缓存, 并标记物化图中该provider及其祖先需要重新计算
+     *
+     * @param name provider name
+     */
+    void invalidate(String name);
+
+    /**
+     * 清除provider指定参数的跨请求结果缓存
+     * 有依赖的provider缓存key中包含依赖结果, 只按调用参数匹配, 清除所有依赖结果下的条目
+     *
+     * @param name provider name
+     * @param args provider方法中调用参数的值, 按方法参数顺序, 不包括依赖参数; 类型需与方法参数一致
+     */
+    void invalidate(String name, Object... args);
+
+    void invalidateAll();
+
+    Map<String, ProviderCacheStats> getCacheStats();
+
 }
@@ -1,11 +1,15 @@
 package com.igniubi.core.aysnc.service;
 
+import com.igniubi.core.aysnc.cache.MaterializedGraph;
 import com.igniubi.core.aysnc.model.AysncProviderDefinition;
 import com.igniubi.core.aysnc.model.InvokeSignature;
+import com.igniubi.core.aysnc.stream.PartialResultListener;
+import com.igniubi.core.aysnc.trace.QueryTrace;
 import lombok.Data;
 
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Data
 public class AysncQueryContext {
@@ -16,21 +20,52 @@ public class AysncQueryContext {
 
     private boolean useCache = true;
 
-    private  Map<InvokeSignature, Object> queryCache = new ConcurrentHashMap<>();
+    /**
+     * 根provider的截止时间, System.nanoTime()
+     */
+    private long deadline;
 
-    public void putCache(InvokeSignature signature, Object o){
-        queryCache.put(signature, o);
-    }
+    /**
+     * 开启trace时的执行轨迹, 未开启时为null
+     */
+    private QueryTrace trace;
+
+    /**
+     * 流式查询时根provider的依赖完成回调, 非流式查询为null
+     */
+    private PartialResultListener partialResultListener;
+
+    /**
+     * 根provider开启物化图时, 依赖图中的节点结果从这里复用
+     */
+    private MaterializedGraph materializedGraph;
+
+    /**
+     * 根provider的依赖图中有异常或超时被忽略(降级为null)时置位, 降级的结果不写入物化图
+     */
+    private final AtomicBoolean degraded = new AtomicBoolean();
+
+    /**
+     * 本次查询中幂等调用的执行, 调用开始时即登记, 相同签名的后续调用复用同一个future
+     */
+    private ConcurrentHashMap<InvokeSignature, CompletableFuture<Object>> queryCache = new ConcurrentHashMap<>();
 
-    public Object getCache(InvokeSignature signature){
-        return queryCache.get(signature);
+    /**
+     * 登记一次调用
+     *
+     * @param signature 调用签名
+     * @param call      当前调用方准备执行的future
+     * @return 已登记的future, 返回call本身时由当前调用方负责执行并完成它
+     */
+    public CompletableFuture<Object> share(InvokeSignature signature, CompletableFuture<Object> call) {
+        return queryCache.computeIfAbsent(signature, key -> call);
     }
 
-    public boolean existCache(InvokeSignature signature){
-        if(!useCache){
-            return false;
-        }
-        return  queryCache.containsKey(signature);
+    /**
+     * 取消登记, 之后相同签名的调用重新登记执行
+     */
+    public void unshare(InvokeSignature signature, CompletableFuture<Object> call) {
+        queryCache.remove(signature, call);
     }
 
 }
@@ -1,201 +1,219 @@
 package com.igniubi.core.aysnc.service;
 
-import com.igniubi.core.aysnc.config.RuntimeSettings;
-import com.igniubi.core.aysnc.func.MultipleArgumentsFunction;
+import com.igniubi.core.aysnc.cache.MaterializedGraph;
+import com.igniubi.core.aysnc.exception.AysncTimeoutException;
 import com.igniubi.core.aysnc.model.*;
-import com.igniubi.core.aysnc.repository.AysncProviderRepository;
-import com.igniubi.core.aysnc.utils.DefinitionUtils;
-import lombok.Setter;
-import org.springframework.context.ApplicationContext;
+import com.igniubi.core.aysnc.trace.TraceNode;
 
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-public class DefaultAysncDataQueryService implements  AysncDataQueryService {
-
-    @Setter
-    private AysncProviderRepository repository;
-
-    @Setter
-    private ApplicationContext applicationContext;
-
-    @Setter
-    private ExecutorService executorService;
-
-    @Setter
-    private RuntimeSettings runtimeSettings;
+/**
+ * 阻塞式查询引擎: 依赖提交到线程池后, 当前线程通过CountDownLatch等待依赖完成
+ */
+public class DefaultAysncDataQueryService extends AbstractAysncDataQueryService {
 
+    private static final Object[] EMPTY_DEPEND_VALUES = new Object[0];
 
     @Override
-    public <T> T get(String name, Map<String, Object> invokeParams, Class<T> resultType) throws InterruptedException, InvocationTargetException, IllegalAccessException {
-        return get(repository.get(name), invokeParams, resultType);
-    }
-
-    @Override
-    public <T> T get(AysncProviderDefinition provider, Map<String, Object> invokeParams, Class<T> resultType)
+    protected <T> T doGet(AysncProviderDefinition provider, Map<String, Object> invokeParams, Class<T> resultType,
+                          AysncQueryContext queryContext)
             throws InterruptedException, InvocationTargetException, IllegalAccessException {
-        AysncQueryContext queryContext = initQueryContext(provider);
-        return innerGet(provider,invokeParams,resultType,null,queryContext);
+        AysncExecutionPlan plan = planOf(provider);
+        queryContext.setDeadline(deadline(provider));
+        return resultType.cast(innerGet(plan, plan.getParamKeys(), invokeParams, queryContext.getDeadline(), queryContext,
+                traceRoot(queryContext), queryContext.getDegraded()));
     }
 
-    @Override
-    public <T> T get(AysncProviderDefinition provider, Map<String, Object> invokeParams, Class<T> resultType, boolean useCache) throws InterruptedException, InvocationTargetException, IllegalAccessException {
-        AysncQueryContext queryContext = initQueryContext(provider);
-        queryContext.setUseCache(useCache);
-        return innerGet(provider,invokeParams,resultType,null,queryContext);
-    }
-
-
-    private  <T> T innerGet(AysncProviderDefinition provider, Map<String, Object> invokeParams, Class<T> resultType,
-                            AysncConsumerDefinition causedConsumer,AysncQueryContext queryContext)
+    /**
+     * @param degraded 当前节点的依赖子图中有异常或超时被忽略时置位
+     */
+    private Object innerGet(AysncExecutionPlan plan, String[] paramKeys, Map<String, Object> invokeParams,
+                            long deadline, AysncQueryContext queryContext, TraceNode traceNode, AtomicBoolean degraded)
             throws InterruptedException, InvocationTargetException, IllegalAccessException{
-        Map<String,Object> dependObjectMap;
-        if(provider.getDepends() != null && ! provider.getDepends().isEmpty()) {
-            List<AysncConsumerDefinition> consumeDefinitions = provider.getDepends();
-            Long timeout = provider.getTimeout() != null ? provider.getTimeout() : runtimeSettings.getTimeout();
-            dependObjectMap = getDependObjectMap(invokeParams, consumeDefinitions, timeout, queryContext);
+        AysncProviderDefinition provider = plan.getProvider();
+        Object[] dependValues;
+        if(plan.hasDepends()) {
+            dependValues = getDependValues(invokeParams, plan.getDepends(), deadline, queryContext, traceNode,
+                    isStreaming(provider, queryContext), degraded);
         } else {
-            dependObjectMap = Collections.emptyMap();
+            dependValues = EMPTY_DEPEND_VALUES;
         }
-        /* 拼凑dependObjects和invokeParams */
-        Object [] args = new Object[provider.getMethod().getParameterCount()];
-
-        for (int i = 0 ; i < provider.getMethodArgs().size(); i ++) {
-            MethodArg methodArg = provider.getMethodArgs().get(i);
-            if (methodArg.getDependType().equals(DependType.OTHER_MODEL)) {
-                args[i] = dependObjectMap.get(methodArg.getAnnotationKey() + "_" + methodArg.getParameter().getName());
-            } else {
-                String paramKey ;
-                if(causedConsumer != null && causedConsumer.getDynamicParameterKeyMap() != null
-                        && causedConsumer.getDynamicParameterKeyMap().containsKey(methodArg.getAnnotationKey())) {
-                    paramKey = causedConsumer.getDynamicParameterKeyMap().get(methodArg.getAnnotationKey());
-                } else {
-                    paramKey = methodArg.getAnnotationKey();
-                }
-                args[i] = invokeParams.get(paramKey);
-            }
-            if (args[i] != null && ! methodArg.getParameter().getType().isAssignableFrom(args[i].getClass())) {
-                throw new IllegalArgumentException("param type not match, param:"
-                        + methodArg.getParameter().getName());
-            }
-        }
-        // 在一次查询中，对于幂等且参数一致的查询方法结果作缓存
-        InvokeSignature invokeSignature = new InvokeSignature(provider.getMethod(),args);
-        Object resultModel;
-        if(provider.isIdempotent() && queryContext.existCache(invokeSignature)) {
-            resultModel = queryContext.getCache(invokeSignature);
-        }
-        else {
-            resultModel = provider.getMethod()
-                    .invoke(provider.getTarget() == null
-                            ? applicationContext.getBean(provider.getMethod().getDeclaringClass())
-                            : provider.getTarget(), args);
-            if(provider.isIdempotent()) {
-                /* Map 中可能不能放空value */
-                queryContext.putCache(invokeSignature,resultModel != null ? resultModel : new Object());
-            }
-        }
-        Object result = resultModel != new Object() ? resultModel : null;
-        return resultType.cast(result);
+        Object [] args = buildArgs(plan, dependValues, paramKeys, invokeParams);
+        return invokeProvider(provider, args, queryContext, traceNode);
     }
 
-    private Map<String, Object> getDependObjectMap(Map<String, Object> invokeParams,
-                                                   List<AysncConsumerDefinition> consumeDefinitions,
-                                                   Long timeout,AysncQueryContext queryContext)
+    /**
+     * 等待依赖直到截止时间, 超时的依赖会被取消并中断执行线程
+     */
+    private Object[] getDependValues(Map<String, Object> invokeParams, AysncExecutionPlan.Depend[] depends,
+                                     long deadline, AysncQueryContext queryContext, TraceNode traceNode,
+                                     boolean streaming, AtomicBoolean degraded)
             throws InterruptedException, InvocationTargetException, IllegalAccessException {
-        Map<String, Object> dependObjectMap;
-        CountDownLatch stopDownLatch = new CountDownLatch(consumeDefinitions.size());
-        Map<String, Future<?>> futureMap = new HashMap<>(consumeDefinitions.size());
-        dependObjectMap = new HashMap<>(consumeDefinitions.size());
-        Map<String,AysncConsumerDefinition> consumeDefinitionMap = new HashMap<>(consumeDefinitions.size());
-        for (AysncConsumerDefinition depend : consumeDefinitions) {
-            consumeDefinitionMap.put(depend.getName(),depend);
-
-            Future<?> future = executorService.submit(new AbstractAsyncQueryTask<Object>(Thread.currentThread()) {
+        CountDownLatch stopDownLatch = new CountDownLatch(depends.length);
+        Future<?>[] futures = new Future<?>[depends.length];
+        long[] dependDeadlines = new long[depends.length];
+        long latestDeadline = System.nanoTime();
+        AbstractAsyncQueryTask<?>[] inlineTasks = new AbstractAsyncQueryTask<?>[depends.length];
+        for (int i = 0; i < depends.length; i++) {
+            AysncExecutionPlan.Depend depend = depends[i];
+            long dependDeadline = deadline(depend.getPlan().getProvider(), deadline);
+            dependDeadlines[i] = dependDeadline;
+            if (dependDeadline - latestDeadline > 0) {
+                latestDeadline = dependDeadline;
+            }
+            MaterializedGraph.Memo memo = memo(depend.getPlan().getProvider(), depend.getInputKeys(), invokeParams,
+                    queryContext);
+            if (memo != null && memo.isClean()) {
+                futures[i] = CompletableFuture.completedFuture(
+                        materializedDepend(depend, memo, queryContext, traceNode, streaming));
+                stopDownLatch.countDown();
+                continue;
+            }
+            long submitTime = System.nanoTime();
+            boolean inline = runInline(depends, i);
+            TraceNode dependNode = traceNode == null ? null : traceNode.child(depend.getConsumer().getName());
+            AtomicBoolean dependDegraded = new AtomicBoolean();
+            AbstractAsyncQueryTask<Object> task = new AbstractAsyncQueryTask<Object>(Thread.currentThread()) {
                 @Override
                 public Object execute() throws Exception {
+                    long startTime = System.nanoTime();
+                    if (! inline) {
+                        metricsRecorder.recordQueueWait(depend.getPlan().getProvider().getName(), startTime - submitTime);
+                    }
+                    if (dependNode != null) {
+                        dependNode.start();
+                    }
+                    Throwable error = null;
                     try {
-                        Object o = innerGet(repository.get(depend.getName()),invokeParams, depend.getClazz(),depend,queryContext);
-                        return depend.getClazz().cast(o);
+                        Object o = depend.getType().cast(innerGet(depend.getPlan(), depend.getParamKeys(), invokeParams,
+                                dependDeadline, queryContext, dependNode, dependDegraded));
+                        /* 降级的结果只用于本次查询, 节点保持dirty, 下次查询重新计算 */
+                        if (dependDegraded.get()) {
+                            degraded.set(true);
+                        } else if (memo != null) {
+                            memo.update(o);
+                        }
+                        if (streaming) {
+                            emitPartial(queryContext, depend.getConsumer().getName(), o);
+                        }
+                        return o;
+                    } catch (Throwable e) {
+                        error = e;
+                        throw e;
                     } finally {
+                        if (dependNode != null) {
+                            dependNode.end(error);
+                        }
+                        if (! inline) {
+                            recordService(startTime);
+                        }
                         stopDownLatch.countDown();
                     }
                 }
-            });
-            futureMap.put(depend.getName() + "_" + depend.getOriginalParameterName(),future);
+            };
+            ExecutorService executor = executorOf(depend.getPlan().getProvider());
+            if (inline) {
+                inlineTasks[i] = task;
+            } else if (executor != executorService || admit(depend.getConsumer().getName(), dependDeadline)) {
+                futures[i] = executor.submit(task);
+            } else {
+                futures[i] = shed(task, stopDownLatch, depend.getConsumer().getName(), degraded);
+                if (futures[i] == null) {
+                    inlineTasks[i] = task;
+                }
+            }
         }
-        stopDownLatch.await(timeout, TimeUnit.MILLISECONDS);
-        if(! futureMap.isEmpty()){
-            for (Map.Entry<String,Future<?>> item : futureMap.entrySet()) {
-                Future<?> future = item.getValue();
-                Object value = null;
-                AysncConsumerDefinition consumeDefinition = consumeDefinitionMap.get(item.getKey().substring(0,item.getKey().indexOf('_')));
-                try {
-                    value = future.get();
-                } catch (ExecutionException e) {
-                    if (consumeDefinition.getIgnoreException() != null ? ! consumeDefinition.getIgnoreException()
-                            : ! runtimeSettings.isIgnoreException()) {
-                        throwException(e);
-                    }
+        /* 其余依赖提交后, 内联的依赖在当前线程执行, 省去一次线程切换; 被拒绝后由调用方执行的依赖也在这里执行 */
+        for (int i = 0; i < depends.length; i++) {
+            if (inlineTasks[i] != null) {
+                FutureTask<?> inlineTask = new FutureTask<>(inlineTasks[i]);
+                inlineTask.run();
+                futures[i] = inlineTask;
+            }
+        }
+        try {
+            await(stopDownLatch, latestDeadline);
+        } catch (InterruptedException e) {
+            /* 当前节点被上层取消, 依赖一并取消 */
+            cancel(futures);
+            throw e;
+        }
+        Object[] dependValues = new Object[depends.length];
+        for (int i = 0; i < depends.length; i++) {
+            Future<?> future = futures[i];
+            try {
+                dependValues[i] = future.get(Math.max(0L, dependDeadlines[i] - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                metricsRecorder.recordTimeout(depends[i].getConsumer().getName());
+                if (! depends[i].isIgnoreException()) {
+                    cancel(futures);
+                    throw new AysncTimeoutException(depends[i].getConsumer().getName());
+                }
+                degraded.set(true);
+            } catch (InterruptedException e) {
+                cancel(futures);
+                throw e;
+            } catch (ExecutionException | CancellationException e) {
+                if (! depends[i].isIgnoreException()) {
+                    cancel(futures);
+                    throwException(e instanceof ExecutionException ? e.getCause() : e);
                 }
-                dependObjectMap.put(item.getKey(),value);
+                degraded.set(true);
             }
         }
-        return dependObjectMap;
+        return dependValues;
     }
 
-    private void throwException(ExecutionException e)  throws InterruptedException,
-            InvocationTargetException, IllegalAccessException  {
-        Throwable cause = e.getCause();
-        if (cause instanceof InterruptedException) {
-            throw (InterruptedException) cause;
-        } else if (cause instanceof  InvocationTargetException){
-            throw (InvocationTargetException) cause;
-        } else if (cause instanceof IllegalAccessException) {
-            throw (IllegalAccessException) cause;
-        } else {
-            throw (RuntimeException) cause;
+    /**
+     * 在ForkJoinPool的工作线程上等待依赖时通知线程池补偿线程, 避免CPU线程池被等待中的任务占满
+     */
+    private static void await(CountDownLatch latch, long deadline) throws InterruptedException {
+        if (! (Thread.currentThread() instanceof ForkJoinWorkerThread)) {
+            latch.await(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            return;
         }
-    }
+        ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+            @Override
+            public boolean block() throws InterruptedException {
+                latch.await(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                return true;
+            }
 
-    private AysncQueryContext initQueryContext(AysncProviderDefinition rootProvider) {
-        AysncQueryContext queryContext = new AysncQueryContext();
-        queryContext.setRootThread(Thread.currentThread());
-        queryContext.setRootProviderDefinition(rootProvider);
-        queryContext.setUseCache(rootProvider.isUseCache());
-        return queryContext;
+            @Override
+            public boolean isReleasable() {
+                return latch.getCount() == 0 || deadline - System.nanoTime() <= 0;
+            }
+        });
     }
 
-    @Override
-    public AysncProviderDefinition getProvider(MultipleArgumentsFunction<?> multipleArgumentsFunction) throws IllegalAccessException {
-        AysncProviderDefinition provider = repository.get(multipleArgumentsFunction.getClass().getName());
-        if(provider != null) {
-            return provider;
-        }
-        Method[] methods = multipleArgumentsFunction.getClass().getMethods();
-        Method applyMethod = null;
-
-        for (Method method : methods) {
-            if(! Modifier.isStatic(method.getModifiers()) && ! method.isDefault()) {
-                applyMethod = method;
+    /**
+     * 准入控制拒绝的依赖按shedPolicy处理, 没有执行的任务由这里计数
+     * CALLER_RUNS返回null, 由调用方在其余依赖提交后执行, 不阻塞后面依赖的提交
+     */
+    private Future<?> shed(AbstractAsyncQueryTask<Object> task, CountDownLatch stopDownLatch, String providerName,
+                           AtomicBoolean degraded) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        switch (admissionController.getShedPolicy()) {
+            case CALLER_RUNS:
+                return null;
+            case NULL:
+                degraded.set(true);
+                future.complete(null);
                 break;
-            }
+            default:
+                future.completeExceptionally(new RejectedExecutionException("data provider shed, name: " + providerName));
         }
+        stopDownLatch.countDown();
+        return future;
+    }
 
-        if(applyMethod == null) {
-            throw new IllegalAccessException(multipleArgumentsFunction.getClass().getName());
+    private void cancel(Future<?>[] futures) {
+        for (Future<?> future : futures) {
+            future.cancel(true);
         }
-
-        provider = DefinitionUtils.getProvideDefinition(applyMethod);
-        provider.setTarget(multipleArgumentsFunction);
-        provider.setName(multipleArgumentsFunction.getClass().getName());
-        repository.put(provider);
-        return provider;
     }
 }
@@ -0,0 +1,407 @@
+package com.igniubi.core.aysnc.service;
+
+import com.igniubi.core.aysnc.cache.MaterializedGraph;
+import com.igniubi.core.aysnc.exception.AysncTimeoutException;
+import com.igniubi.core.aysnc.model.AysncExecutionPlan;
+import com.igniubi.core.aysnc.model.AysncProviderDefinition;
+import com.igniubi.core.aysnc.trace.TraceNode;
+import lombok.Setter;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * 非阻塞查询引擎: 按provider的依赖关系把整张图组合成CompletableFuture,
+ * 工作线程不会等待子provider, 只有根调用方在get时阻塞
+ */
+public class FutureAysncDataQueryService extends AbstractAysncDataQueryService {
+
+    private static final Object[] EMPTY_DEPEND_VALUES = new Object[0];
+
+    /**
+     * 计时器线程完成超时future期间置位, 由此触发的provider和调用方回调转交给线程池执行
+     */
+    private static final ThreadLocal<Boolean> ON_TIMER = new ThreadLocal<>();
+
+    /**
+     * 依赖超时的计时器
+     */
+    @Setter
+    private ScheduledExecutorService timeoutScheduler;
+
+    @Override
+    protected <T> T doGet(AysncProviderDefinition provider, Map<String, Object> invokeParams, Class<T> resultType,
+                          AysncQueryContext queryContext)
+            throws InterruptedException, InvocationTargetException, IllegalAccessException {
+        AysncExecutionPlan plan = planOf(provider);
+        long deadline = deadline(provider);
+        queryContext.setDeadline(deadline);
+        CompletableFuture<Object> future = invoke(plan, plan.getParamKeys(), invokeParams, deadline, queryContext,
+                traceRoot(queryContext), queryContext.getDegraded());
+        try {
+            return resultType.cast(future.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+        } catch (TimeoutException e) {
+            metricsRecorder.recordTimeout(provider.getName());
+            throw new AysncTimeoutException(provider.getName());
+        } catch (ExecutionException e) {
+            throwException(e.getCause());
+            return null;
+        }
+    }
+
+    /**
+     * 异步查询, 整张图在线程池上组合执行, 调用线程不阻塞, 根provider超时后future以AysncTimeoutException结束
+     */
+    @Override
+    public <T> CompletableFuture<T> getAsync(AysncProviderDefinition provider, Map<String, Object> invokeParams,
+                                             Class<T> resultType, boolean useCache) {
+        return singleFlight(provider, invokeParams, useCache, () -> {
+            AysncQueryContext queryContext = initQueryContext(provider);
+            queryContext.setUseCache(useCache);
+            return doGetAsync(provider, invokeParams, queryContext);
+        }).thenApply(resultType::cast);
+    }
+
+    @Override
+    protected CompletableFuture<Object> doGetAsync(AysncProviderDefinition provider, Map<String, Object> invokeParams,
+                                                   AysncQueryContext queryContext) {
+        AysncExecutionPlan plan = planOf(provider);
+        MaterializedGraph.Memo memo = memo(provider, plan.getInputKeys(), invokeParams, queryContext);
+        if (memo != null && memo.isClean()) {
+            Object value = materialized(provider, memo, traceRoot(queryContext));
+            finishTrace(queryContext, null);
+            return CompletableFuture.completedFuture(value);
+        }
+        long deadline = deadline(provider);
+        queryContext.setDeadline(deadline);
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        try {
+            executorOf(provider).execute(() -> invoke(plan, plan.getParamKeys(), invokeParams, deadline, queryContext,
+                    traceRoot(queryContext), queryContext.getDegraded()).whenComplete((o, e) -> {
+                        /* 先保存物化结果再完成future, 调用方拿到结果后的查询可以复用 */
+                        if (memo != null && e == null && ! queryContext.getDegraded().get()) {
+                            memo.update(o);
+                        }
+                        complete(future, o, e);
+                    }));
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        ScheduledFuture<?> timer = timeoutScheduler.schedule(() -> onTimer(() -> {
+                    if (future.completeExceptionally(new AysncTimeoutException(provider.getName()))) {
+                        metricsRecorder.recordTimeout(provider.getName());
+                    }
+                }), deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        /* trace listener和调用方的回调都不在计时器线程上执行 */
+        return future.whenCompleteAsync((o, e) -> {
+            timer.cancel(false);
+            finishTrace(queryContext, e);
+        }, continuation(executorOf(provider)));
+    }
+
+    /**
+     * 在计时器线程上完成超时的future
+     */
+    private static void onTimer(Runnable completion) {
+        ON_TIMER.set(Boolean.TRUE);
+        try {
+            completion.run();
+        } finally {
+            ON_TIMER.remove();
+        }
+    }
+
+    /**
+     * 由计时器线程触发的回调提交到executor, 其余情况在完成future的线程上直接执行, 不增加线程切换.
+     * 线程池拒绝时只能在计时器线程上执行
+     */
+    private static Executor continuation(ExecutorService executor) {
+        return command -> {
+            if (ON_TIMER.get() == null) {
+                command.run();
+                return;
+            }
+            try {
+                executor.execute(command);
+            } catch (RejectedExecutionException e) {
+                command.run();
+            }
+        };
+    }
+
+    /**
+     * @param degraded 当前节点的依赖子图中有异常或超时被忽略时置位
+     */
+    private CompletableFuture<Object> invoke(AysncExecutionPlan plan, String[] paramKeys, Map<String, Object> invokeParams,
+                                             long deadline, AysncQueryContext queryContext, TraceNode traceNode,
+                                             AtomicBoolean degraded) {
+        if (! plan.hasDepends()) {
+            return apply(plan, EMPTY_DEPEND_VALUES, paramKeys, invokeParams, queryContext, traceNode);
+        }
+        AysncExecutionPlan.Depend[] depends = plan.getDepends();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[depends.length];
+        boolean streaming = isStreaming(plan.getProvider(), queryContext);
+        List<Runnable> callerRuns = new ArrayList<>(0);
+        /* 先提交需要线程池执行的依赖, 再在当前线程执行内联的依赖 */
+        for (int pass = 0; pass < 2; pass++) {
+            boolean inline = pass == 1;
+            for (int i = 0; i < depends.length; i++) {
+                if (runInline(depends, i) != inline) {
+                    continue;
+                }
+                MaterializedGraph.Memo memo = memo(depends[i].getPlan().getProvider(), depends[i].getInputKeys(),
+                        invokeParams, queryContext);
+                if (memo != null && memo.isClean()) {
+                    futures[i] = CompletableFuture.completedFuture(
+                            materializedDepend(depends[i], memo, queryContext, traceNode, streaming));
+                    continue;
+                }
+                TraceNode dependNode = traceNode == null ? null : traceNode.child(depends[i].getConsumer().getName());
+                futures[i] = dependFuture(depends[i], invokeParams, deadline, queryContext, dependNode, inline, streaming,
+                        memo, degraded, callerRuns);
+            }
+        }
+        /* 被拒绝后由调用方执行的依赖等所有依赖提交后再执行 */
+        for (Runnable task : callerRuns) {
+            task.run();
+        }
+        Function<Void, CompletableFuture<Object>> applyDepends = v -> {
+            Object[] dependValues = new Object[futures.length];
+            for (int i = 0; i < futures.length; i++) {
+                dependValues[i] = futures[i].join();
+            }
+            return apply(plan, dependValues, paramKeys, invokeParams, queryContext, traceNode);
+        };
+        /* 指定了线程池的provider不在完成最后一个依赖的线程上执行, 依赖超时触发时也不在计时器线程上执行 */
+        ExecutorService executor = plan.getProvider().getExecutor();
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        CompletableFuture.allOf(futures).thenComposeAsync(applyDepends,
+                executor == null ? continuation(executorService) : executor).whenComplete((o, e) -> complete(result, o, e));
+        /* 不忽略异常的依赖失败时当前节点立即失败, 不等待其他依赖 */
+        for (int i = 0; i < depends.length; i++) {
+            if (! depends[i].isIgnoreException()) {
+                futures[i].whenComplete((o, e) -> {
+                    if (e != null) {
+                        complete(result, null, e);
+                    }
+                });
+            }
+        }
+        /* 当前节点失败、超时或被上层取消时, 未完成的依赖一并取消 */
+        result.whenComplete((o, e) -> {
+            if (e != null) {
+                cancel(futures);
+            }
+        });
+        return result;
+    }
+
+    private static void cancel(CompletableFuture<?>[] futures) {
+        for (CompletableFuture<?> future : futures) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * 子provider提交到线程池执行, 子provider自己的依赖继续以future方式组合
+     * 到达截止时间仍未完成时取消并中断执行中的任务, 内联的依赖直接在当前线程执行
+     */
+    private CompletableFuture<Object> dependFuture(AysncExecutionPlan.Depend depend, Map<String, Object> invokeParams,
+                                                   long deadline, AysncQueryContext queryContext, TraceNode traceNode,
+                                                   boolean inline, boolean streaming, MaterializedGraph.Memo memo,
+                                                   AtomicBoolean degraded, List<Runnable> callerRuns) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        AtomicBoolean dependDegraded = new AtomicBoolean();
+        long dependDeadline = deadline(depend.getPlan().getProvider(), deadline);
+        ExecutorService executor = executorOf(depend.getPlan().getProvider());
+        long submitTime = System.nanoTime();
+        FutureTask<Object> task = new FutureTask<>(() -> {
+            long startTime = System.nanoTime();
+            if (! inline) {
+                metricsRecorder.recordQueueWait(depend.getConsumer().getName(), startTime - submitTime);
+            }
+            if (traceNode != null) {
+                traceNode.start();
+            }
+            try {
+                CompletableFuture<Object> running = invoke(depend.getPlan(), depend.getParamKeys(), invokeParams,
+                        dependDeadline, queryContext, traceNode, dependDegraded);
+                running.whenComplete((o, e) -> complete(future, o, e));
+                future.whenComplete((o, e) -> {
+                    if (e != null) {
+                        running.cancel(true);
+                    }
+                });
+            } finally {
+                if (! inline) {
+                    recordService(startTime);
+                }
+            }
+        }, null);
+        future.whenComplete((o, e) -> {
+            if (traceNode != null) {
+                traceNode.end(e);
+            }
+            /* 被取消时中断执行中的任务, 还没执行的任务不再执行 */
+            if (e instanceof CancellationException) {
+                task.cancel(true);
+            }
+        });
+        if (inline) {
+            task.run();
+        } else if (executor == executorService && ! admit(depend.getConsumer().getName(), dependDeadline)) {
+            shed(task, future, depend.getConsumer().getName(), dependDegraded, callerRuns);
+        } else {
+            try {
+                executor.execute(task);
+                ScheduledFuture<?> timer = timeoutScheduler.schedule(() -> onTimer(() -> {
+                    if (future.completeExceptionally(new AysncTimeoutException(depend.getConsumer().getName()))) {
+                        metricsRecorder.recordTimeout(depend.getConsumer().getName());
+                        task.cancel(true);
+                    }
+                }), dependDeadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                future.whenComplete((o, e) -> timer.cancel(false));
+            } catch (RejectedExecutionException e) {
+                future.completeExceptionally(e);
+            }
+        }
+        CompletableFuture<Object> result = future.handle((o, e) -> {
+            if (e != null) {
+                if (depend.isIgnoreException()) {
+                    degraded.set(true);
+                    return null;
+                }
+                throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+            }
+            Object value = depend.getType().cast(o);
+            /* 降级的结果只用于本次查询, 节点保持dirty, 下次查询重新计算 */
+            if (dependDegraded.get()) {
+                degraded.set(true);
+            } else if (memo != null) {
+                memo.update(value);
+            }
+            /* 在依赖结果传给上层之前回调, 保证根provider结果之前已发出所有依赖的事件 */
+            if (streaming) {
+                emitPartial(queryContext, depend.getConsumer().getName(), value);
+            }
+            return value;
+        });
+        /* 上层取消依赖时传给执行中的future */
+        result.whenComplete((o, e) -> {
+            if (e instanceof CancellationException) {
+                future.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 准入控制拒绝的依赖按shedPolicy处理, CALLER_RUNS的任务加入callerRuns, 由调用方在其余依赖提交后执行
+     */
+    private void shed(FutureTask<Object> task, CompletableFuture<Object> future, String providerName,
+                      AtomicBoolean degraded, List<Runnable> callerRuns) {
+        switch (admissionController.getShedPolicy()) {
+            case CALLER_RUNS:
+                callerRuns.add(task);
+                break;
+            case NULL:
+                degraded.set(true);
+                future.complete(null);
+                break;
+            default:
+                future.completeExceptionally(new RejectedExecutionException("data provider shed, name: " + providerName));
+        }
+    }
+
+    /**
+     * 对冲不占用等待的线程: 第一次调用提交到线程池, 到达对冲延迟时由计时器决定是否再发起一次,
+     * 取先完成的结果并取消另一次调用, 到达截止时间仍未完成时两次调用都被取消.
+     * 虚拟线程模式下等待并发许可本身就是阻塞的, 仍用阻塞的对冲
+     */
+    @Override
+    protected CompletableFuture<Object> hedgedInvokeAsync(AysncProviderDefinition provider, Object[] args, long deadline) {
+        if (concurrencyLimiter != null) {
+            return super.hedgedInvokeAsync(provider, args, deadline);
+        }
+        ProviderHedger hedger = provider.getHedger();
+        long hedgeAfter = hedger.onCall();
+        ExecutorService executor = executorOf(provider);
+        CompletableFuture<Object> first = new CompletableFuture<>();
+        if (hedgeAfter < 0 || ! hasIdleThread(executor)) {
+            try {
+                first.complete(attempt(provider, args, deadline));
+            } catch (Throwable e) {
+                first.completeExceptionally(e);
+            }
+            return first;
+        }
+        Future<?> primary;
+        try {
+            primary = executor.submit(() -> attempt(provider, args, deadline, first));
+        } catch (RejectedExecutionException e) {
+            first.completeExceptionally(e);
+            return first;
+        }
+        CompletableFuture<Object> second = new CompletableFuture<>();
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        CompletableFuture.anyOf(first, second).whenComplete((o, e) -> complete(result, o, e));
+        AtomicReference<Future<?>> hedge = new AtomicReference<>();
+        ScheduledFuture<?> hedgeTimer = timeoutScheduler.schedule(() -> {
+            if (! result.isDone() && hasIdleThread(executor) && hedger.tryHedge()) {
+                metricsRecorder.recordHedge(provider.getName());
+                try {
+                    hedge.set(executor.submit(() -> attempt(provider, args, deadline, second)));
+                } catch (RejectedExecutionException e) {
+                    /* 对冲被拒绝时只等第一次调用 */
+                    return;
+                }
+                /* 提交期间结果已经完成 */
+                if (result.isDone()) {
+                    hedge.get().cancel(true);
+                }
+            }
+        }, hedgeAfter, TimeUnit.NANOSECONDS);
+        ScheduledFuture<?> expiry = timeoutScheduler.schedule(() -> onTimer(() ->
+                result.completeExceptionally(new AysncTimeoutException(provider.getName()))),
+                deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        result.whenComplete((o, e) -> {
+            hedgeTimer.cancel(false);
+            expiry.cancel(false);
+            primary.cancel(true);
+            Future<?> running = hedge.get();
+            if (running != null) {
+                running.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private void complete(CompletableFuture<Object> future, Object o, Throwable e) {
+        if (e == null) {
+            future.complete(o);
+        } else {
+            future.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+        }
+    }
+
+    private CompletableFuture<Object> apply(AysncExecutionPlan plan, Object[] dependValues, String[] paramKeys,
+                                            Map<String, Object> invokeParams, AysncQueryContext queryContext,
+                                            TraceNode traceNode) {
+        Object[] args;
+        try {
+            args = buildArgs(plan, dependValues, paramKeys, invokeParams);
+        } catch (Throwable e) {
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+        return invokeProviderAsync(plan.getProvider(), args, queryContext, traceNode);
+    }
+}
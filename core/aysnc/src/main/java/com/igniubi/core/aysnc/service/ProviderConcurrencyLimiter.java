@@ -0,0 +1,27 @@
+package com.igniubi.core.aysnc.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 按provider名称限制并发调用数, 虚拟线程模式下没有线程池大小兜底, 由它保护下游
+ */
+public class ProviderConcurrencyLimiter {
+
+    private final int defaultLimit;
+
+    private final Map<String, Integer> limits;
+
+    private final ConcurrentHashMap<String, Semaphore> semaphores = new ConcurrentHashMap<>();
+
+    public ProviderConcurrencyLimiter(int defaultLimit, Map<String, Integer> limits) {
+        this.defaultLimit = defaultLimit;
+        this.limits = limits;
+    }
+
+    public Semaphore get(String providerName) {
+        return semaphores.computeIfAbsent(providerName,
+                name -> new Semaphore(limits.getOrDefault(name, defaultLimit)));
+    }
+}
@@ -0,0 +1,85 @@
+package com.igniubi.core.aysnc.service;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 幂等provider的对冲调用策略: 首次调用超过对冲延迟仍未返回时再发起一次,
+ * 对冲次数不超过调用次数的budgetPercent%
+ */
+public class ProviderHedger {
+
+    /**
+     * 统计p95使用的最近调用耗时个数
+     */
+    private static final int WINDOW_SIZE = 256;
+
+    /**
+     * 每记录多少次重新计算一次p95
+     */
+    private static final int RECOMPUTE_INTERVAL = 32;
+
+    private final long hedgeAfterNanos;
+
+    private final int budgetPercent;
+
+    private final long[] samples = new long[WINDOW_SIZE];
+
+    private int sampleCount;
+
+    private int nextSample;
+
+    private volatile long p95Nanos = -1;
+
+    private final LongAdder calls = new LongAdder();
+
+    private final LongAdder hedges = new LongAdder();
+
+    /**
+     * @param hedgeAfterMillis 大于0为固定延迟, 小于0使用观察到的p95
+     * @param budgetPercent    对冲调用占总调用的最大百分比
+     */
+    public ProviderHedger(long hedgeAfterMillis, int budgetPercent) {
+        this.hedgeAfterNanos = TimeUnit.MILLISECONDS.toNanos(hedgeAfterMillis);
+        this.budgetPercent = budgetPercent;
+    }
+
+    /**
+     * 登记一次调用并返回对冲延迟
+     *
+     * @return 对冲延迟(纳秒), p95模式下样本不足时返回-1, 不对冲
+     */
+    public long onCall() {
+        calls.increment();
+        return hedgeAfterNanos > 0 ? hedgeAfterNanos : p95Nanos;
+    }
+
+    /**
+     * 预算内时占用一次对冲
+     */
+    public boolean tryHedge() {
+        if ((hedges.sum() + 1) * 100 > calls.sum() * budgetPercent) {
+            return false;
+        }
+        hedges.increment();
+        return true;
+    }
+
+    public synchronized void record(long nanos) {
+        samples[nextSample] = nanos;
+        nextSample = (nextSample + 1) % WINDOW_SIZE;
+        if (sampleCount < WINDOW_SIZE) {
+            sampleCount++;
+        }
+        if (sampleCount >= RECOMPUTE_INTERVAL && nextSample % RECOMPUTE_INTERVAL == 0) {
+            long[] sorted = Arrays.copyOf(samples, sampleCount);
+            Arrays.sort(sorted);
+            p95Nanos = sorted[(int) Math.ceil(sorted.length * 0.95) - 1];
+        }
+    }
+
+    public long getHedgeCount() {
+        return hedges.sum();
+    }
+}
@@ -0,0 +1,27 @@
+package com.igniubi.core.aysnc.stream;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 流式查询的一个事件: 根provider的一个依赖的结果, 或最后的根provider结果
+ */
+@Getter
+@ToString
+public class PartialResult {
+
+    private final String providerName;
+
+    private final Object value;
+
+    /**
+     * 是否为根provider的结果, 为true时是最后一个事件
+     */
+    private final boolean root;
+
+    public PartialResult(String providerName, Object value, boolean root) {
+        this.providerName = providerName;
+        this.value = value;
+        this.root = root;
+    }
+}
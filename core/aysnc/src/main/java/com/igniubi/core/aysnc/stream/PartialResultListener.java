@@ -0,0 +1,14 @@
+package com.igniubi.core.aysnc.stream;
+
+/**
+ * 流式查询中根provider的依赖完成时的回调, 在完成依赖的线程上调用, 实现需要线程安全且不能阻塞
+ */
+@FunctionalInterface
+public interface PartialResultListener {
+
+    /**
+     * @param providerName 完成的依赖provider
+     * @param value        依赖的结果
+     */
+    void onPartial(String providerName, Object value);
+}
@@ -0,0 +1,55 @@
+package com.igniubi.core.aysnc.trace;
+
+import brave.Span;
+import brave.Tracer;
+import brave.Tracing;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 把查询轨迹补录成Brave span树, 挂在调用方当前的span下, 关键路径上的span带aysnc.critical标签
+ */
+public class BraveQueryTraceListener implements QueryTraceListener {
+
+    private final ObjectProvider<Tracing> tracing;
+
+    public BraveQueryTraceListener(ObjectProvider<Tracing> tracing) {
+        this.tracing = tracing;
+    }
+
+    @Override
+    public void onTrace(QueryTrace trace, Throwable error) {
+        Tracing current = tracing.getIfAvailable();
+        if (current == null) {
+            return;
+        }
+        Tracer tracer = current.tracer();
+        Set<TraceNode> criticalPath = new HashSet<>(trace.criticalPath());
+        Span root = tracer.nextSpan();
+        if (error != null) {
+            root.error(error);
+        }
+        report(tracer, trace, trace.getRoot(), root, criticalPath);
+    }
+
+    private void report(Tracer tracer, QueryTrace trace, TraceNode node, Span span, Set<TraceNode> criticalPath) {
+        span.name(node.getProvider())
+                .tag("aysnc.cached", String.valueOf(node.isCached()))
+                .tag("aysnc.critical", String.valueOf(criticalPath.contains(node)))
+                .start(trace.epochMicros(node.getStartNanos()));
+        if (node.getThread() != null) {
+            span.tag("aysnc.thread", node.getThread());
+        }
+        if (node.isFailed()) {
+            span.tag("error", "true");
+        }
+        for (TraceNode child : node.getChildren()) {
+            if (child.isEnded()) {
+                report(tracer, trace, child, tracer.newChild(span.context()), criticalPath);
+            }
+        }
+        span.finish(trace.epochMicros(node.getEndNanos()));
+    }
+}
@@ -0,0 +1,60 @@
+package com.igniubi.core.aysnc.trace;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一次查询的执行轨迹, 只在开启trace时记录
+ */
+@Getter
+public class QueryTrace {
+
+    private final TraceNode root;
+
+    /**
+     * 查询开始的系统时间(微秒), 用于把nanoTime换算成时间戳
+     */
+    private final long startEpochMicros;
+
+    public QueryTrace(String rootProvider) {
+        this.startEpochMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+        this.root = new TraceNode(rootProvider);
+        this.root.start();
+    }
+
+    public long getDurationNanos() {
+        return root.getDurationNanos();
+    }
+
+    /**
+     * 决定查询耗时的依赖链: 从根节点开始, 每层取最晚结束的子节点,
+     * provider在所有依赖完成后才执行, 所以最晚结束的依赖就是该层的瓶颈
+     *
+     * @return 从根节点到叶子节点的关键路径
+     */
+    public List<TraceNode> criticalPath() {
+        List<TraceNode> path = new ArrayList<>();
+        TraceNode node = root;
+        while (node != null) {
+            path.add(node);
+            TraceNode latest = null;
+            for (TraceNode child : node.getChildren()) {
+                if (child.isEnded() && (latest == null || child.getEndNanos() - latest.getEndNanos() > 0)) {
+                    latest = child;
+                }
+            }
+            node = latest;
+        }
+        return path;
+    }
+
+    /**
+     * nanoTime换算成时间戳(微秒)
+     */
+    public long epochMicros(long nanos) {
+        return startEpochMicros + TimeUnit.NANOSECONDS.toMicros(nanos - root.getSubmitNanos());
+    }
+}
@@ -0,0 +1,13 @@
+package com.igniubi.core.aysnc.trace;
+
+/**
+ * 开启trace后, 每次查询结束时回调, 在查询的调用线程或完成查询的线程上执行
+ */
+public interface QueryTraceListener {
+
+    /**
+     * @param trace 查询轨迹
+     * @param error 查询异常, 成功时为null
+     */
+    void onTrace(QueryTrace trace, Throwable error);
+}
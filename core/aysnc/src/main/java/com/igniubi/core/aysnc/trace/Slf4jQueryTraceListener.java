@@ -0,0 +1,48 @@
+package com.igniubi.core.aysnc.trace;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 超过阈值的查询以key=value格式输出关键路径日志
+ */
+@Slf4j
+public class Slf4jQueryTraceListener implements QueryTraceListener {
+
+    private final long slowThresholdNanos;
+
+    public Slf4jQueryTraceListener(long slowThresholdMillis) {
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+    }
+
+    @Override
+    public void onTrace(QueryTrace trace, Throwable error) {
+        if (! log.isInfoEnabled() || trace.getDurationNanos() < slowThresholdNanos) {
+            return;
+        }
+        StringBuilder path = new StringBuilder();
+        for (TraceNode node : trace.criticalPath()) {
+            if (path.length() > 0) {
+                path.append(" > ");
+            }
+            path.append(node.getProvider())
+                    .append("[wait=").append(micros(node.getQueueWaitNanos()))
+                    .append("us,took=").append(micros(node.getDurationNanos()))
+                    .append("us,thread=").append(node.getThread());
+            if (node.isCached()) {
+                path.append(",cached");
+            }
+            if (node.isFailed()) {
+                path.append(",failed");
+            }
+            path.append(']');
+        }
+        log.info("aysnc query trace, root={} tookUs={} failed={} criticalPath={}",
+                trace.getRoot().getProvider(), micros(trace.getDurationNanos()), error != null, path);
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+}
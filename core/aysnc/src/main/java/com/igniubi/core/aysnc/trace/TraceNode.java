@@ -0,0 +1,81 @@
+package com.igniubi.core.aysnc.trace;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 查询中一个provider节点的执行记录, 依赖在提交时登记为子节点
+ */
+@Getter
+public class TraceNode {
+
+    private final String provider;
+
+    /**
+     * 提交到线程池的时间, 根节点为查询开始时间
+     */
+    private final long submitNanos;
+
+    /**
+     * 开始处理节点(等待依赖或调用provider)的时间
+     */
+    private volatile long startNanos;
+
+    private volatile long endNanos;
+
+    /**
+     * 调用provider方法的线程, 命中缓存时为等待结果的线程
+     */
+    private volatile String thread;
+
+    /**
+     * 结果来自查询上下文共享或跨请求结果缓存, provider方法没有在本节点执行
+     */
+    private volatile boolean cached;
+
+    private volatile boolean failed;
+
+    private final List<TraceNode> children = new CopyOnWriteArrayList<>();
+
+    TraceNode(String provider) {
+        this.provider = provider;
+        this.submitNanos = System.nanoTime();
+    }
+
+    public TraceNode child(String provider) {
+        TraceNode child = new TraceNode(provider);
+        children.add(child);
+        return child;
+    }
+
+    public void start() {
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * 记录调用provider的线程
+     */
+    public void invoked(boolean cached) {
+        this.thread = Thread.currentThread().getName();
+        this.cached = cached;
+    }
+
+    public void end(Throwable error) {
+        failed = error != null;
+        endNanos = System.nanoTime();
+    }
+
+    public boolean isEnded() {
+        return endNanos != 0;
+    }
+
+    public long getDurationNanos() {
+        return endNanos - startNanos;
+    }
+
+    public long getQueueWaitNanos() {
+        return startNanos - submitNanos;
+    }
+}
@@ -0,0 +1,16 @@
+package com.igniubi.core.aysnc.trace;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 查询结果及其执行轨迹
+ */
+@Getter
+@AllArgsConstructor
+public class TracedResult<T> {
+
+    private final T value;
+
+    private final QueryTrace trace;
+}
@@ -1,22 +1,84 @@
 package com.igniubi.core.aysnc.utils;
 
+import com.igniubi.core.aysnc.annotation.AysncBatchProvider;
 import com.igniubi.core.aysnc.annotation.AysncConsumer;
 import com.igniubi.core.aysnc.annotation.DynamicParameter;
 import com.igniubi.core.aysnc.annotation.InvokeParameter;
+import com.igniubi.core.aysnc.invoker.BatchProviderInvoker;
+import com.igniubi.core.aysnc.invoker.MethodHandleProviderInvoker;
 import com.igniubi.core.aysnc.model.*;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.Parameter;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.function.Function;
 
 public class DefinitionUtils {
 
+    /**
+     * lambda类对应的provider定义模板, 随lambda类一起回收, 不持有target, 执行计划首次编译后保存在模板上
+     */
+    private static final ClassValue<AysncProviderDefinition> LAMBDA_DEFINITIONS = new ClassValue<AysncProviderDefinition>() {
+        @Override
+        protected AysncProviderDefinition computeValue(Class<?> type) {
+            for (Method method : type.getMethods()) {
+                if (! Modifier.isStatic(method.getModifiers()) && ! method.isDefault()) {
+                    AysncProviderDefinition provider = getProvideDefinition(method);
+                    provider.setName(type.getName());
+                    return provider;
+                }
+            }
+            return null;
+        }
+    };
+
+    /**
+     * 获取lambda的provider定义, 反射解析结果按lambda类缓存, 每次返回绑定了该lambda的新定义
+     *
+     * @param function lambda
+     * @return result
+     */
+    public static AysncProviderDefinition getLambdaProvideDefinition(Object function) throws IllegalAccessException {
+        return getLambdaProvideDefinition(function, null);
+    }
+
+    /**
+     * 获取lambda的provider定义, 模板的执行计划只由compiler编译一次, 之后绑定到每次返回的新定义上
+     *
+     * @param function lambda
+     * @param compiler 编译模板的执行计划, 为null时不编译
+     * @return result
+     */
+    public static AysncProviderDefinition getLambdaProvideDefinition(Object function,
+                                                                     Function<AysncProviderDefinition, AysncExecutionPlan> compiler)
+            throws IllegalAccessException {
+        AysncProviderDefinition template = LAMBDA_DEFINITIONS.get(function.getClass());
+        if (template == null) {
+            throw new IllegalAccessException(function.getClass().getName());
+        }
+        AysncExecutionPlan plan = template.getPlan();
+        if (plan == null && compiler != null) {
+            plan = compiler.apply(template);
+        }
+        AysncProviderDefinition provider = new AysncProviderDefinition();
+        provider.setName(template.getName());
+        provider.setMethod(template.getMethod());
+        provider.setInvoker(template.getInvoker());
+        provider.setDepends(template.getDepends());
+        provider.setParams(template.getParams());
+        provider.setMethodArgs(template.getMethodArgs());
+        provider.setBatch(template.isBatch());
+        provider.setTarget(function);
+        if (plan != null) {
+            provider.setPlan(plan.bind(provider));
+        }
+        return provider;
+    }
+
     /**
      * get provider's consume definitions
      *
@@ -31,14 +93,39 @@ public class DefinitionUtils {
         provider.setDepends(new ArrayList<>(method.getParameterCount()));
         provider.setParams(new ArrayList<>(method.getParameterCount()));
         provider.setMethod(method);
+        provider.setInvoker(new MethodHandleProviderInvoker(method));
 
         for (Parameter parameter : parameters) {
             dealMethodParameter(provider, methodArgs, parameter);
         }
         provider.setMethodArgs(methodArgs);
+
+        AysncBatchProvider batchProvider = AnnotationUtils.findAnnotation(method, AysncBatchProvider.class);
+        if (batchProvider != null) {
+            dealBatchProvider(provider, batchProvider);
+        }
         return provider;
     }
 
+    /**
+     * 批量provider按单个key注册, 调用器负责把同一窗口内的key合并成一次调用
+     */
+    private static void dealBatchProvider(AysncProviderDefinition provideDefinition, AysncBatchProvider batchProvider) {
+        Method method = provideDefinition.getMethod();
+        Assert.isTrue(method.getParameterCount() == 1 && provideDefinition.getParams().size() == 1,
+                "batch provider must have exactly one @InvokeParameter parameter, method: " + method);
+        Class<?> parameterType = method.getParameterTypes()[0];
+        Assert.isTrue(Collection.class.isAssignableFrom(parameterType)
+                        && (parameterType.isAssignableFrom(ArrayList.class) || parameterType.isAssignableFrom(LinkedHashSet.class)),
+                "batch provider parameter must be Collection, List or Set, method: " + method);
+        Assert.isTrue(Map.class.isAssignableFrom(method.getReturnType()),
+                "batch provider must return Map, method: " + method);
+        Assert.isTrue(batchProvider.batchSize() > 0, "batchSize must be positive, method: " + method);
+        provideDefinition.setBatch(true);
+        provideDefinition.setInvoker(new BatchProviderInvoker(provideDefinition.getInvoker(), parameterType,
+                batchProvider.batchSize(), batchProvider.window()));
+    }
+
     private static void dealMethodParameter(AysncProviderDefinition provideDefinition,
                                             List<MethodArg> methodArgs, Parameter parameter) {
         AysncConsumer dataConsumer = AnnotationUtils.findAnnotation(parameter, AysncConsumer.class);
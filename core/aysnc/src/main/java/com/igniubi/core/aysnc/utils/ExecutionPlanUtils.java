@@ -0,0 +1,100 @@
+package com.igniubi.core.aysnc.utils;
+
+import com.igniubi.core.aysnc.model.*;
+import com.igniubi.core.aysnc.repository.AysncProviderRepository;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+import java.util.*;
+
+public class ExecutionPlanUtils {
+
+    /**
+     * 编译provider的执行计划, 依赖的provider会一并编译, 已编译的直接复用
+     *
+     * @param provider               provider定义
+     * @param repository             provider仓库, 用于解析依赖
+     * @param defaultIgnoreException 依赖未单独配置时是否忽略异常
+     * @return 执行计划
+     */
+    public static AysncExecutionPlan compile(AysncProviderDefinition provider, AysncProviderRepository repository,
+                                             boolean defaultIgnoreException) {
+        if (provider.getPlan() != null) {
+            return provider.getPlan();
+        }
+        List<MethodArg> methodArgs = provider.getMethodArgs();
+        List<AysncConsumerDefinition> consumers = provider.getDepends() != null
+                ? provider.getDepends() : Collections.emptyList();
+        int argCount = provider.getMethod().getParameterCount();
+
+        AysncExecutionPlan.Depend[] depends = new AysncExecutionPlan.Depend[consumers.size()];
+        Set<String> dependParamKeys = new TreeSet<>();
+        for (int i = 0; i < consumers.size(); i++) {
+            AysncConsumerDefinition consumer = consumers.get(i);
+            AysncProviderDefinition child = repository.get(consumer.getName());
+            Assert.notNull(child, "data provider not found, name: " + consumer.getName());
+            AysncExecutionPlan childPlan = compile(child, repository, defaultIgnoreException);
+            boolean ignoreException = consumer.getIgnoreException() != null
+                    ? consumer.getIgnoreException() : defaultIgnoreException;
+            String[] paramKeys = bindParamKeys(child, consumer.getDynamicParameterKeyMap());
+            String[] inputKeys = inputKeys(paramKeys, childPlan.getDependParamKeys());
+            Collections.addAll(dependParamKeys, inputKeys);
+            depends[i] = new AysncExecutionPlan.Depend(consumer, childPlan, paramKeys, inputKeys,
+                    ClassUtils.resolvePrimitiveIfNecessary(consumer.getClazz()), ignoreException);
+        }
+
+        int[] dependIndexes = new int[argCount];
+        Class<?>[] argTypes = new Class<?>[argCount];
+        String[] argNames = new String[argCount];
+        int dependIndex = 0;
+        for (int i = 0; i < methodArgs.size(); i++) {
+            MethodArg methodArg = methodArgs.get(i);
+            /* 批量provider的参数类型是集合, 调用时传入的是单个key */
+            argTypes[i] = provider.isBatch()
+                    ? Object.class : ClassUtils.resolvePrimitiveIfNecessary(methodArg.getParameter().getType());
+            argNames[i] = methodArg.getParameter().getName();
+            /* depends 与 OTHER_MODEL 参数按方法参数顺序一一对应 */
+            dependIndexes[i] = methodArg.getDependType() == DependType.OTHER_MODEL
+                    ? dependIndex++ : AysncExecutionPlan.INVOKE_PARAM_SLOT;
+        }
+
+        String[] paramKeys = bindParamKeys(provider, null);
+        String[] dependKeys = dependParamKeys.toArray(new String[0]);
+        AysncExecutionPlan plan = new AysncExecutionPlan(provider, dependIndexes, paramKeys, argTypes, argNames,
+                depends, dependKeys, inputKeys(paramKeys, dependKeys));
+        provider.setPlan(plan);
+        return plan;
+    }
+
+    /**
+     * 计算provider读取调用参数时使用的key, 动态参数只替换直接依赖的key
+     */
+    private static String[] bindParamKeys(AysncProviderDefinition provider, Map<String, String> dynamicParameterKeyMap) {
+        String[] paramKeys = new String[provider.getMethod().getParameterCount()];
+        for (int i = 0; i < provider.getMethodArgs().size(); i++) {
+            MethodArg methodArg = provider.getMethodArgs().get(i);
+            if (methodArg.getDependType() != DependType.INVOKE_PARAM) {
+                continue;
+            }
+            String key = methodArg.getAnnotationKey();
+            if (dynamicParameterKeyMap != null && dynamicParameterKeyMap.containsKey(key)) {
+                key = dynamicParameterKeyMap.get(key);
+            }
+            paramKeys[i] = key;
+        }
+        return paramKeys;
+    }
+
+    /**
+     * 合并provider自身读取的key和依赖子图读取的key, 排序后作为稳定的查询输入
+     */
+    private static String[] inputKeys(String[] paramKeys, String[] dependParamKeys) {
+        Set<String> keys = new TreeSet<>(Arrays.asList(dependParamKeys));
+        for (String paramKey : paramKeys) {
+            if (paramKey != null) {
+                keys.add(paramKey);
+            }
+        }
+        return keys.toArray(new String[0]);
+    }
+}
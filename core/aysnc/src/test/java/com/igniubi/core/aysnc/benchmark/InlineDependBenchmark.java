@@ -0,0 +1,101 @@
+package com.igniubi.core.aysnc.benchmark;
+
+import com.igniubi.core.aysnc.benchmark.fanout.FanoutProviders;
+import com.igniubi.core.aysnc.config.AysncAutoConfiguration;
+import com.igniubi.core.aysnc.service.AysncDataQueryService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一个provider依赖三个叶子provider时, 依赖在调用方线程执行节省的线程切换.
+ * poolTasks为每次查询提交到线程池的任务数, 每个任务对应一次线程切换和一次唤醒等待中的调用方.
+ * fanout: inlineLastDepend开启时最后一个依赖在调用方线程执行; inlineFanout: 叶子provider声明inline = true
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InlineDependBenchmark {
+
+    @Param({"latch", "future"})
+    public String engine;
+
+    @Param({"false", "true"})
+    public boolean inlineLastDepend;
+
+    private final Map<String, Object> params = Collections.singletonMap("id", 1);
+
+    private ConfigurableApplicationContext context;
+
+    private AysncDataQueryService queryService;
+
+    private ThreadPoolExecutor pool;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class PoolTasks {
+
+        public long queries;
+
+        public long poolTasks;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            queries = 0;
+            poolTasks = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        context = new SpringApplicationBuilder(AysncAutoConfiguration.class, FanoutProviders.class)
+                .web(WebApplicationType.NONE)
+                .properties("igniubi.aysnc.spring.base-packages=com.igniubi.core.aysnc.benchmark.fanout",
+                        "igniubi.aysnc.spring.engine=" + engine,
+                        "igniubi.aysnc.spring.inline-last-depend=" + inlineLastDepend,
+                        "igniubi.aysnc.spring.enable-logging=false",
+                        "logging.level.root=warn")
+                .run();
+        queryService = context.getBean(AysncDataQueryService.class);
+        pool = context.getBean("aysncExecutorService", ThreadPoolExecutor.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Integer fanout(PoolTasks counters) throws Exception {
+        return query("fanout", counters);
+    }
+
+    @Benchmark
+    public Integer inlineFanout(PoolTasks counters) throws Exception {
+        return query("inlineFanout", counters);
+    }
+
+    private Integer query(String name, PoolTasks counters) throws Exception {
+        long before = pool.getTaskCount();
+        Integer value = queryService.get(name, params, Integer.class);
+        counters.poolTasks += pool.getTaskCount() - before;
+        counters.queries++;
+        return value;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(InlineDependBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,71 @@
+package com.igniubi.core.aysnc.benchmark;
+
+import com.igniubi.core.aysnc.annotation.AysncConsumer;
+import com.igniubi.core.aysnc.annotation.InvokeParameter;
+import com.igniubi.core.aysnc.func.Function1;
+import com.igniubi.core.aysnc.func.Function2;
+import com.igniubi.core.aysnc.func.MultipleArgumentsFunction;
+import com.igniubi.core.aysnc.model.AysncProviderDefinition;
+import com.igniubi.core.aysnc.utils.DefinitionUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * facade的lambda调用在执行provider之前解析provider定义的开销.
+ * uncached为原来每次调用遍历getMethods并解析参数注解的路径, cached为按lambda类缓存的定义模板
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LambdaDefinitionBenchmark {
+
+    @Param({"noArgs", "twoArgs"})
+    public String shape;
+
+    private MultipleArgumentsFunction<String> function;
+
+    @Setup
+    public void setup() {
+        if ("noArgs".equals(shape)) {
+            function = (Function1<String>) () -> "value";
+        } else {
+            function = new Function2<String, String, String>() {
+                @Override
+                public String apply(@AysncConsumer("user") String user, @InvokeParameter("id") String id) {
+                    return user + id;
+                }
+            };
+        }
+    }
+
+    @Benchmark
+    public AysncProviderDefinition uncached() throws IllegalAccessException {
+        for (Method method : function.getClass().getMethods()) {
+            if (! Modifier.isStatic(method.getModifiers()) && ! method.isDefault()) {
+                AysncProviderDefinition provider = DefinitionUtils.getProvideDefinition(method);
+                provider.setTarget(function);
+                provider.setName(function.getClass().getName());
+                return provider;
+            }
+        }
+        throw new IllegalAccessException(function.getClass().getName());
+    }
+
+    @Benchmark
+    public AysncProviderDefinition cached() throws IllegalAccessException {
+        return DefinitionUtils.getLambdaProvideDefinition(function);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(LambdaDefinitionBenchmark.class.getSimpleName()).build()).run();
+    }
+}
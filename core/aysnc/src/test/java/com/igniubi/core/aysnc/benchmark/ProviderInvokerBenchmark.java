@@ -0,0 +1,101 @@
+package com.igniubi.core.aysnc.benchmark;
+
+import com.igniubi.core.aysnc.invoker.MethodHandleProviderInvoker;
+import com.igniubi.core.aysnc.invoker.ProviderInvoker;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 反射调用与MethodHandle调用provider方法的开销, 参数个数0到5.
+ * reflectiveLookup为原来的调用路径: 每次按类型getBean, setAccessible后Method.invoke;
+ * reflective只保留Method.invoke, methodHandle为注册时绑定的调用器.
+ * 运行: mvn test-compile 后执行main方法, 或 java -cp &lt;test classpath&gt; org.openjdk.jmh.Main ProviderInvokerBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProviderInvokerBenchmark {
+
+    @Param({"0", "1", "2", "3", "4", "5"})
+    public int arity;
+
+    private final Providers target = new Providers();
+
+    private Method method;
+
+    private ProviderInvoker invoker;
+
+    private Object[] args;
+
+    private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        beanFactory.registerSingleton("providers", target);
+        Class<?>[] types = new Class<?>[arity];
+        args = new Object[arity];
+        for (int i = 0; i < arity; i++) {
+            types[i] = Integer.class;
+            args[i] = i;
+        }
+        method = Providers.class.getDeclaredMethod("m" + arity, types);
+        invoker = new MethodHandleProviderInvoker(method);
+    }
+
+    @Benchmark
+    public Object reflectiveLookup() throws Exception {
+        Object bean = beanFactory.getBean(method.getDeclaringClass());
+        method.setAccessible(true);
+        return method.invoke(bean, args);
+    }
+
+    @Benchmark
+    public Object reflective() throws Exception {
+        return method.invoke(target, args);
+    }
+
+    @Benchmark
+    public Object methodHandle() throws Exception {
+        return invoker.invoke(target, args);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ProviderInvokerBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static class Providers {
+
+        private Object m0() {
+            return this;
+        }
+
+        private Object m1(Integer a) {
+            return a;
+        }
+
+        private Object m2(Integer a, Integer b) {
+            return b;
+        }
+
+        private Object m3(Integer a, Integer b, Integer c) {
+            return c;
+        }
+
+        private Object m4(Integer a, Integer b, Integer c, Integer d) {
+            return d;
+        }
+
+        private Object m5(Integer a, Integer b, Integer c, Integer d, Integer e) {
+            return e;
+        }
+    }
+}
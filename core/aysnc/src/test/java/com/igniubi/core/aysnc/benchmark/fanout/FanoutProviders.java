@@ -0,0 +1,55 @@
+package com.igniubi.core.aysnc.benchmark.fanout;
+
+import com.igniubi.core.aysnc.annotation.AysncConsumer;
+import com.igniubi.core.aysnc.annotation.AysncProvider;
+import com.igniubi.core.aysnc.annotation.InvokeParameter;
+import org.springframework.stereotype.Component;
+
+/**
+ * 一个provider依赖三个轻量的叶子provider
+ */
+@Component
+public class FanoutProviders {
+
+    @AysncProvider(value = "fanoutA", useCache = false)
+    public Integer a(@InvokeParameter("id") Integer id) {
+        return id + 1;
+    }
+
+    @AysncProvider(value = "fanoutB", useCache = false)
+    public Integer b(@InvokeParameter("id") Integer id) {
+        return id + 2;
+    }
+
+    @AysncProvider(value = "fanoutC", useCache = false)
+    public Integer c(@InvokeParameter("id") Integer id) {
+        return id + 3;
+    }
+
+    @AysncProvider(value = "fanout", useCache = false)
+    public Integer fanout(@AysncConsumer("fanoutA") Integer a, @AysncConsumer("fanoutB") Integer b,
+                          @AysncConsumer("fanoutC") Integer c) {
+        return a + b + c;
+    }
+
+    @AysncProvider(value = "inlineA", useCache = false, inline = true)
+    public Integer inlineA(@InvokeParameter("id") Integer id) {
+        return id + 1;
+    }
+
+    @AysncProvider(value = "inlineB", useCache = false, inline = true)
+    public Integer inlineB(@InvokeParameter("id") Integer id) {
+        return id + 2;
+    }
+
+    @AysncProvider(value = "inlineC", useCache = false, inline = true)
+    public Integer inlineC(@InvokeParameter("id") Integer id) {
+        return id + 3;
+    }
+
+    @AysncProvider(value = "inlineFanout", useCache = false)
+    public Integer inlineFanout(@AysncConsumer("inlineA") Integer a, @AysncConsumer("inlineB") Integer b,
+                                @AysncConsumer("inlineC") Integer c) {
+        return a + b + c;
+    }
+}
@@ -0,0 +1,67 @@
+package com.igniubi.core.aysnc.cache;
+
+import com.igniubi.core.aysnc.model.InvokeSignature;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * 按条目数和结果权重淘汰
+ */
+public class ProviderResultCacheTests {
+
+    private static InvokeSignature signature(int id) {
+        return new InvokeSignature(null, new Object[]{id});
+    }
+
+    @Test
+    public void evictsByEntries() {
+        ProviderResultCache cache = new ProviderResultCache("entries", 60000, 2);
+        cache.put(signature(1), "a");
+        cache.put(signature(2), "b");
+        assertNotNull(cache.get(signature(1)));
+        cache.put(signature(3), "c");
+        assertNull(cache.get(signature(2)));
+        assertNotNull(cache.get(signature(1)));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.stats().getEvictions());
+    }
+
+    @Test
+    public void evictsByWeight() {
+        ProviderResultCache cache = new ProviderResultCache("weight", 60000, 10, 10, ResultWeigher.ELEMENTS);
+        cache.put(signature(1), Arrays.asList(1, 2, 3, 4));
+        cache.put(signature(2), Arrays.asList(1, 2, 3, 4));
+        cache.put(signature(3), Arrays.asList(1, 2, 3, 4));
+        assertNull(cache.get(signature(1)));
+        assertEquals(2, cache.size());
+        assertEquals(8, cache.weight());
+
+        cache.put(signature(2), Collections.singletonList(1));
+        assertEquals(5, cache.weight());
+        cache.invalidate(signature(3));
+        assertEquals(1, cache.weight());
+    }
+
+    @Test
+    public void neverExceedsMaxEntries() {
+        ProviderResultCache cache = new ProviderResultCache("bounded", 60000, 100);
+        for (int i = 0; i < 10000; i++) {
+            cache.put(signature(i), i);
+        }
+        assertEquals(100, cache.size());
+    }
+
+    @Test
+    public void oversizedResultIsNotCached() {
+        ProviderResultCache cache = new ProviderResultCache("oversized", 60000, 10, 10, ResultWeigher.ELEMENTS);
+        cache.put(signature(1), "small");
+        cache.put(signature(2), "much longer than ten");
+        assertNotNull(cache.get(signature(1)));
+        assertNull(cache.get(signature(2)));
+        assertEquals(0, cache.stats().getEvictions());
+    }
+}
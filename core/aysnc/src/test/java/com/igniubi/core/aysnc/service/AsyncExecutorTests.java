@@ -0,0 +1,42 @@
+package com.igniubi.core.aysnc.service;
+
+import com.igniubi.core.aysnc.config.AysncAutoConfiguration;
+import com.igniubi.core.aysnc.service.async.AsyncProviders;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 阻塞式引擎的异步查询在自己的线程池上等待, 不占用CompletableFuture的公共线程池和依赖的线程池
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {AysncAutoConfiguration.class, AsyncProviders.class}, properties = {
+        "igniubi.aysnc.spring.base-packages=com.igniubi.core.aysnc.service.async",
+        "igniubi.aysnc.spring.thread-prefix=async-test-"})
+public class AsyncExecutorTests {
+
+    @Autowired
+    private AysncDataQueryService queryService;
+
+    private final Map<String, Object> params = Collections.singletonMap("id", 1);
+
+    @Test
+    public void getAsyncRunsOnQueryExecutor() throws Exception {
+        String thread = queryService.getAsync("rootThread", params, String.class).get();
+        assertTrue(thread, thread.startsWith("async-test-query-"));
+    }
+
+    @Test
+    public void streamRunsOnQueryExecutor() throws Exception {
+        String thread = queryService.stream("rootThread", params, String.class, (name, value) -> {
+        }).get();
+        assertTrue(thread, thread.startsWith("async-test-query-"));
+    }
+}
@@ -0,0 +1,87 @@
+package com.igniubi.core.aysnc.service;
+
+import com.igniubi.core.aysnc.config.AysncAutoConfiguration;
+import com.igniubi.core.aysnc.exception.AysncTimeoutException;
+import com.igniubi.core.aysnc.service.batch.BatchProviders;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 批量provider: 窗口内的key合并为一次调用, 调用在批量线程池上执行, 调用方只等到自己的截止时间
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {AysncAutoConfiguration.class, BatchProviders.class}, properties = {
+        "igniubi.aysnc.spring.base-packages=com.igniubi.core.aysnc.service.batch",
+        "igniubi.aysnc.spring.thread-prefix=batch-test-",
+        "igniubi.aysnc.spring.thread-number=8"})
+public class BatchTests {
+
+    @Autowired
+    protected AysncDataQueryService queryService;
+
+    @Autowired
+    protected BatchProviders providers;
+
+    @Before
+    public void reset() {
+        providers.batchCalls.set(0);
+        providers.batchThreads.clear();
+    }
+
+    @Test
+    public void keysInWindowAreMerged() throws Exception {
+        List<CompletableFuture<String>> users = new ArrayList<>();
+        for (int id = 0; id < 5; id++) {
+            users.add(queryService.getAsync("patient", Collections.singletonMap("userId", id), String.class));
+        }
+        for (int id = 0; id < 5; id++) {
+            assertEquals("patient:user-" + id, users.get(id).get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, providers.batchCalls.get());
+        for (String thread : providers.batchThreads) {
+            assertTrue(thread, thread.startsWith("batch-test-batch-"));
+        }
+    }
+
+    @Test
+    public void timedOutConsumerDoesNotFailBatch() throws Exception {
+        /* hasty先到, 打开批次; 它超时后批量调用仍然完成patient的key */
+        CompletableFuture<String> hasty = queryService.getAsync("hasty", Collections.singletonMap("userId", 10), String.class);
+        Thread.sleep(20);
+        CompletableFuture<String> patient = queryService.getAsync("patient", Collections.singletonMap("userId", 11), String.class);
+        try {
+            hasty.get(5, TimeUnit.SECONDS);
+            fail("hasty should time out");
+        } catch (ExecutionException e) {
+            assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof AysncTimeoutException);
+        }
+        assertEquals("patient:user-11", patient.get(5, TimeUnit.SECONDS));
+        assertEquals(1, providers.batchCalls.get());
+    }
+
+    @Test
+    public void rootWaitIsBoundedByDeadline() throws Exception {
+        long start = System.nanoTime();
+        try {
+            queryService.get("hastyRoot", Collections.singletonMap("userId", 20), String.class);
+            fail("batch root should time out");
+        } catch (AysncTimeoutException e) {
+            assertEquals("hastyRoot", e.getProviderName());
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("elapsed " + elapsed, elapsed < 250);
+    }
+}
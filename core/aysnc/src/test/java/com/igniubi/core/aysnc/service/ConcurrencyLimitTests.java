@@ -0,0 +1,62 @@
+package com.igniubi.core.aysnc.service;
+
+import com.igniubi.core.aysnc.config.AysncAutoConfiguration;
+import com.igniubi.core.aysnc.exception.AysncTimeoutException;
+import com.igniubi.core.aysnc.service.limit.LimitProviders;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Collections;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * provider并发许可只等到查询的截止时间
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {AysncAutoConfiguration.class, LimitProviders.class}, properties = {
+        "igniubi.aysnc.spring.base-packages=com.igniubi.core.aysnc.service.limit"})
+public class ConcurrencyLimitTests {
+
+    @Autowired
+    private AysncDataQueryService queryService;
+
+    private ProviderConcurrencyLimiter limiter;
+
+    @Before
+    public void setUp() {
+        /* 并发限制只在虚拟线程模式下开启, 这里直接设置 */
+        limiter = new ProviderConcurrencyLimiter(1, Collections.emptyMap());
+        ((AbstractAysncDataQueryService) queryService).setConcurrencyLimiter(limiter);
+    }
+
+    @Test
+    public void permitIsReleased() throws Exception {
+        assertEquals("limited-1", queryService.get("limited", Collections.singletonMap("id", 1), String.class));
+        assertEquals("limited-2", queryService.get("limited", Collections.singletonMap("id", 2), String.class));
+        assertEquals(1, limiter.get("limited").availablePermits());
+    }
+
+    @Test
+    public void permitWaitIsBoundedByDeadline() throws Exception {
+        Semaphore semaphore = limiter.get("limited");
+        semaphore.acquire();
+        long start = System.nanoTime();
+        try {
+            queryService.get("limited", Collections.singletonMap("id", 3), String.class);
+            fail("waiting for a permit should time out");
+        } catch (AysncTimeoutException e) {
+            assertEquals("limited", e.getProviderName());
+        } finally {
+            semaphore.release();
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("elapsed " + elapsed, elapsed >= 90 && elapsed < 1000);
+    }
+}
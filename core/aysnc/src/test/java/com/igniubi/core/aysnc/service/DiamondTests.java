@@ -0,0 +1,54 @@
+package com.igniubi.core.aysnc.service;
+
+import com.igniubi.core.aysnc.config.AysncAutoConfiguration;
+import com.igniubi.core.aysnc.service.diamond.DiamondProviders;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 菱形依赖: 一次查询中共同依赖的provider只执行一次, 一个consumer超时不影响其他consumer
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {AysncAutoConfiguration.class, DiamondProviders.class}, properties = {
+        "igniubi.aysnc.spring.base-packages=com.igniubi.core.aysnc.service.diamond",
+        "igniubi.aysnc.spring.ignore-exception=true"})
+public class DiamondTests {
+
+    @Autowired
+    protected AysncDataQueryService queryService;
+
+    @Autowired
+    protected DiamondProviders providers;
+
+    @Before
+    public void reset() {
+        providers.sharedCalls.set(0);
+    }
+
+    @Test
+    public void sharedDependencyInvokedOnce() throws Exception {
+        assertEquals("left:shared-1|right:shared-1",
+                queryService.get("diamond", Collections.singletonMap("id", 1), String.class));
+        assertEquals(1, providers.sharedCalls.get());
+    }
+
+    @Test
+    public void siblingSurvivesTimedOutConsumer() throws Exception {
+        int queries = 5;
+        for (int id = 10; id < 10 + queries; id++) {
+            String race = queryService.get("race", Collections.singletonMap("id", id), String.class);
+            assertTrue(race, race.endsWith("|patient:shared-" + id));
+        }
+        /* 超时的consumer正在执行shared时, 另一个consumer重新执行一次 */
+        assertTrue(providers.sharedCalls.get() >= queries && providers.sharedCalls.get() <= queries * 2);
+    }
+}
@@ -0,0 +1,15 @@
+package com.igniubi.core.aysnc.service;
+
+import com.igniubi.core.aysnc.config.AysncAutoConfiguration;
+import com.igniubi.core.aysnc.service.diamond.DiamondProviders;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * 非阻塞引擎下的菱形依赖
+ */
+@SpringBootTest(classes = {AysncAutoConfiguration.class, DiamondProviders.class}, properties = {
+        "igniubi.aysnc.spring.base-packages=com.igniubi.core.aysnc.service.diamond",
+        "igniubi.aysnc.spring.engine=future",
+        "igniubi.aysnc.spring.ignore-exception=true"})
+public class FutureDiamondTests extends DiamondTests {
+}
@@ -0,0 +1,50 @@
+package com.igniubi.core.aysnc.service;
+
+import com.igniubi.core.aysnc.config.AysncAutoConfiguration;
+import com.igniubi.core.aysnc.service.timeout.TimeoutProviders;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 依赖超时由计时器线程触发, 上层provider和调用方回调不能在计时器线程上执行
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {AysncAutoConfiguration.class, TimeoutProviders.class}, properties = {
+        "igniubi.aysnc.spring.base-packages=com.igniubi.core.aysnc.service.timeout",
+        "igniubi.aysnc.spring.engine=future",
+        "igniubi.aysnc.spring.ignore-exception=true"})
+public class FutureEngineTimeoutTests {
+
+    private static final String TIMER_PREFIX = "aggregateTask-timeout-";
+
+    private final Map<String, Object> params = Collections.singletonMap("id", 1);
+
+    @Autowired
+    private AysncDataQueryService queryService;
+
+    @Test
+    public void parentOfTimedOutDependencyDoesNotRunOnTimer() throws Exception {
+        long start = System.nanoTime();
+        String thread = queryService.get("slowUser", params, String.class);
+        assertFalse(thread, thread.startsWith(TIMER_PREFIX));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    public void asyncCallbacksDoNotRunOnTimer() throws Exception {
+        String callbackThread = queryService.getAsync("slowUser", params, String.class)
+                .thenApply(parent -> Thread.currentThread().getName())
+                .get(1, TimeUnit.SECONDS);
+        assertFalse(callbackThread, callbackThread.startsWith(TIMER_PREFIX));
+    }
+}
@@ -0,0 +1,47 @@
+package com.igniubi.core.aysnc.service;
+
+import com.igniubi.core.aysnc.config.AysncAutoConfiguration;
+import com.igniubi.core.aysnc.service.failfast.FailFastProviders;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 非阻塞引擎下依赖失败时上层立即失败, 不等待其他依赖, 执行中的兄弟依赖被取消
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {AysncAutoConfiguration.class, FailFastProviders.class}, properties = {
+        "igniubi.aysnc.spring.base-packages=com.igniubi.core.aysnc.service.failfast",
+        "igniubi.aysnc.spring.engine=future"})
+public class FutureFailFastTests {
+
+    @Autowired
+    private AysncDataQueryService queryService;
+
+    @Autowired
+    private FailFastProviders providers;
+
+    @Test
+    public void failedDependCancelsSiblings() throws Exception {
+        providers.started = new CountDownLatch(1);
+        providers.interrupted = new CountDownLatch(1);
+        long start = System.nanoTime();
+        try {
+            queryService.get("brokenPair", Collections.singletonMap("id", 1), String.class);
+            fail("brokenPair should fail");
+        } catch (InvocationTargetException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertTrue("sluggish should be interrupted", providers.interrupted.await(1, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,32 @@
+package com.igniubi.core.aysnc.service;
+
+import com.igniubi.core.aysnc.config.AysncAutoConfiguration;
+import com.igniubi.core.aysnc.service.hedge.HedgeProviders;
+import org.junit.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 非阻塞引擎下对冲由计时器发起, 不占用等待结果的线程
+ */
+@SpringBootTest(classes = {AysncAutoConfiguration.class, HedgeProviders.class}, properties = {
+        "igniubi.aysnc.spring.base-packages=com.igniubi.core.aysnc.service.hedge",
+        "igniubi.aysnc.spring.engine=future",
+        "igniubi.aysnc.spring.thread-prefix=hedge-test-",
+        "igniubi.aysnc.spring.thread-number=2",
+        "igniubi.aysnc.spring.hedge-budget-percent=100"})
+public class FutureHedgeTests extends HedgeTests {
+
+    @Test
+    public void dependIsHedgedWithoutWaitingThread() throws Exception {
+        /* 两个线程: 依赖的任务不等待对冲结果, 第一次调用占一个线程, 对冲占另一个 */
+        long hedges = hedgeCount();
+        String thread = queryService.get("hedgedDepend", Collections.singletonMap("id", 3), String.class);
+        assertTrue(thread, thread.startsWith("hedge-test-"));
+        assertEquals(hedges + 1, hedgeCount());
+    }
+}
@@ -0,0 +1,15 @@
+package com.igniubi.core.aysnc.service;
+
+import com.igniubi.core.aysnc.config.AysncAutoConfiguration;
+import com.igniubi.core.aysnc.service.materialized.MaterializedProviders;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * 非阻塞引擎下的物化图降级
+ */
+@SpringBootTest(classes = {AysncAutoConfiguration.class, MaterializedProviders.class}, properties = {
+        "igniubi.aysnc.spring.base-packages=com.igniubi.core.aysnc.service.materialized",
+        "igniubi.aysnc.spring.engine=future",
+        "igniubi.aysnc.spring.ignore-exception=true"})
+public class FutureMaterializedDegradedTests extends MaterializedDegradedTests {
+}
@@ -0,0 +1,17 @@
+package com.igniubi.core.aysnc.service;
+
+import com.igniubi.core.aysnc.config.AysncAutoConfiguration;
+import com.igniubi.core.aysnc.service.shed.ShedProviders;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * 非阻塞引擎下被拒绝的依赖由调用方执行
+ */
+@SpringBootTest(classes = {AysncAutoConfiguration.class, ShedProviders.class}, properties = {
+        "igniubi.aysnc.spring.base-packages=com.igniubi.core.aysnc.service.shed",
+        "igniubi.aysnc.spring.engine=future",
+        "igniubi.aysnc.spring.thread-number=2",
+        "igniubi.aysnc.spring.admission-control=true",
+        "igniubi.aysnc.spring.shed-policy=caller_runs"})
+public class FutureShedTests extends ShedTests {
+}
@@ -0,0 +1,88 @@
+package com.igniubi.core.aysnc.service;
+
+import com.igniubi.core.aysnc.config.AysncAutoConfiguration;
+import com.igniubi.core.aysnc.repository.AysncProviderRepository;
+import com.igniubi.core.aysnc.service.hedge.HedgeProviders;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.Assert.*;
+
+/**
+ * 对冲调用: 线程池有空闲线程时对冲慢调用, 线程池饱和时不对冲
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {AysncAutoConfiguration.class, HedgeProviders.class}, properties = {
+        "igniubi.aysnc.spring.base-packages=com.igniubi.core.aysnc.service.hedge",
+        "igniubi.aysnc.spring.thread-prefix=hedge-test-",
+        "igniubi.aysnc.spring.thread-number=2",
+        "igniubi.aysnc.spring.hedge-budget-percent=100"})
+public class HedgeTests {
+
+    @Autowired
+    protected AysncDataQueryService queryService;
+
+    @Autowired
+    private AysncProviderRepository repository;
+
+    @Autowired
+    @Qualifier("aysncExecutorService")
+    private ExecutorService executorService;
+
+    @Autowired
+    private HedgeProviders providers;
+
+    @Before
+    public void reset() {
+        providers.attempts.set(0);
+    }
+
+    @Test
+    public void slowCallIsHedgedOnIdlePool() throws Exception {
+        long hedges = hedgeCount();
+        String thread = queryService.get("slowOnce", Collections.singletonMap("id", 1), String.class);
+        assertTrue(thread, thread.startsWith("hedge-test-"));
+        assertEquals(hedges + 1, hedgeCount());
+    }
+
+    @Test
+    public void saturatedPoolIsNotHedged() throws Exception {
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) executorService;
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < pool.getMaximumPoolSize(); i++) {
+            pool.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        try {
+            while (pool.getActiveCount() < pool.getMaximumPoolSize()) {
+                Thread.sleep(5);
+            }
+            long hedges = hedgeCount();
+            String thread = queryService.get("slowOnce", Collections.singletonMap("id", 2), String.class);
+            /* 没有空闲线程, 在调用线程上执行, 不提交到线程池排队 */
+            assertEquals(Thread.currentThread().getName(), thread);
+            assertEquals(hedges, hedgeCount());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    protected long hedgeCount() {
+        return repository.get("slowOnce").getHedger().getHedgeCount();
+    }
+}
@@ -0,0 +1,54 @@
+package com.igniubi.core.aysnc.service;
+
+import com.igniubi.core.aysnc.annotation.AysncConsumer;
+import com.igniubi.core.aysnc.annotation.InvokeParameter;
+import com.igniubi.core.aysnc.config.AysncAutoConfiguration;
+import com.igniubi.core.aysnc.func.Function2;
+import com.igniubi.core.aysnc.model.AysncProviderDefinition;
+import com.igniubi.core.aysnc.service.async.AsyncProviders;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * lambda provider的执行计划按lambda类只编译一次, 每次调用绑定到新的定义上
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {AysncAutoConfiguration.class, AsyncProviders.class}, properties = {
+        "igniubi.aysnc.spring.base-packages=com.igniubi.core.aysnc.service.async",
+        "igniubi.aysnc.spring.thread-prefix=async-test-"})
+public class LambdaPlanTests {
+
+    @Autowired
+    private AysncDataQueryService queryService;
+
+    private static Function2<String, Integer, String> lambda(String suffix) {
+        return new Function2<String, Integer, String>() {
+            @Override
+            public String apply(@AysncConsumer("id") String id, @InvokeParameter("id") Integer raw) {
+                return id + "/" + raw + suffix;
+            }
+        };
+    }
+
+    @Test
+    public void planIsCompiledOnce() throws Exception {
+        AysncProviderDefinition first = queryService.getLambdaProvider(lambda("-a"));
+        AysncProviderDefinition second = queryService.getLambdaProvider(lambda("-b"));
+        assertNotSame(first, second);
+        assertSame(first, first.getPlan().getProvider());
+        assertSame(second, second.getPlan().getProvider());
+        assertSame(first.getPlan().getDepends(), second.getPlan().getDepends());
+
+        first.setUseCache(false);
+        second.setUseCache(false);
+        assertEquals("id-1/1-a", queryService.get(first, Collections.singletonMap("id", 1), String.class));
+        assertEquals("id-1/1-b", queryService.get(second, Collections.singletonMap("id", 1), String.class));
+    }
+}
@@ -0,0 +1,57 @@
+package com.igniubi.core.aysnc.service;
+
+import com.igniubi.core.aysnc.config.AysncAutoConfiguration;
+import com.igniubi.core.aysnc.service.materialized.MaterializedProviders;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 依赖的异常被忽略时, 降级的结果不能作为干净的节点写入物化图
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {AysncAutoConfiguration.class, MaterializedProviders.class}, properties = {
+        "igniubi.aysnc.spring.base-packages=com.igniubi.core.aysnc.service.materialized",
+        "igniubi.aysnc.spring.ignore-exception=true"})
+public class MaterializedDegradedTests {
+
+    @Autowired
+    protected AysncDataQueryService queryService;
+
+    @Autowired
+    protected MaterializedProviders providers;
+
+    @Before
+    public void reset() {
+        providers.flakyCalls.set(0);
+        providers.rootCalls.set(0);
+    }
+
+    @Test
+    public void degradedResultIsRecomputed() throws Exception {
+        Map<String, Object> params = Collections.singletonMap("id", 1);
+        assertEquals("user:null", queryService.get("flakyUser", params, String.class));
+        assertEquals("user:flaky-2", queryService.get("flakyUser", params, String.class));
+        assertEquals("user:flaky-2", queryService.get("flakyUser", params, String.class));
+        assertEquals(2, providers.flakyCalls.get());
+        assertEquals(2, providers.rootCalls.get());
+    }
+
+    @Test
+    public void degradedAsyncResultIsRecomputed() throws Exception {
+        Map<String, Object> asyncParams = Collections.singletonMap("id", 2);
+        assertEquals("user:null", queryService.getAsync("flakyUser", asyncParams, String.class).get());
+        assertEquals("user:flaky-2", queryService.getAsync("flakyUser", asyncParams, String.class).get());
+        assertEquals("user:flaky-2", queryService.getAsync("flakyUser", asyncParams, String.class).get());
+        assertEquals(2, providers.flakyCalls.get());
+        assertEquals(2, providers.rootCalls.get());
+    }
+}
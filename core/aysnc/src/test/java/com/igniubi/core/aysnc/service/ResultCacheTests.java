@@ -0,0 +1,68 @@
+package com.igniubi.core.aysnc.service;
+
+import com.igniubi.core.aysnc.config.AysncAutoConfiguration;
+import com.igniubi.core.aysnc.service.resultcache.ResultCacheProviders;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 跨请求结果缓存按调用参数失效, 包括有依赖的provider
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {AysncAutoConfiguration.class, ResultCacheProviders.class}, properties = {
+        "igniubi.aysnc.spring.base-packages=com.igniubi.core.aysnc.service.resultcache"})
+public class ResultCacheTests {
+
+    @Autowired
+    private AysncDataQueryService queryService;
+
+    @Autowired
+    private ResultCacheProviders providers;
+
+    @Before
+    public void reset() {
+        queryService.invalidateAll();
+        providers.dictCalls.set(0);
+        providers.profileCalls.set(0);
+    }
+
+    @Test
+    public void invalidateByArgs() throws Exception {
+        Map<String, Object> one = Collections.singletonMap("id", 1);
+        Map<String, Object> two = Collections.singletonMap("id", 2);
+        queryService.get("dict", one, String.class);
+        queryService.get("dict", two, String.class);
+        queryService.get("dict", one, String.class);
+        assertEquals(2, providers.dictCalls.get());
+
+        queryService.invalidate("dict", 1);
+        queryService.get("dict", one, String.class);
+        queryService.get("dict", two, String.class);
+        assertEquals(3, providers.dictCalls.get());
+    }
+
+    @Test
+    public void invalidateProviderWithDependsByInvokeParams() throws Exception {
+        Map<String, Object> one = Collections.singletonMap("id", 1);
+        Map<String, Object> two = Collections.singletonMap("id", 2);
+        assertEquals("profile-1:level-1", queryService.get("profile", one, String.class));
+        queryService.get("profile", two, String.class);
+        queryService.get("profile", one, String.class);
+        assertEquals(2, providers.profileCalls.get());
+
+        queryService.invalidate("profile", 1);
+        queryService.get("profile", one, String.class);
+        queryService.get("profile", two, String.class);
+        assertEquals(3, providers.profileCalls.get());
+        assertEquals(3L, queryService.getCacheStats().get("profile").getMisses());
+    }
+}
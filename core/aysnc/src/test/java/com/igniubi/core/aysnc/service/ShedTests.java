@@ -0,0 +1,50 @@
+package com.igniubi.core.aysnc.service;
+
+import com.igniubi.core.aysnc.config.AysncAutoConfiguration;
+import com.igniubi.core.aysnc.service.shed.ShedProviders;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 被准入控制拒绝的依赖由调用方执行时, 不阻塞后面依赖的提交
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {AysncAutoConfiguration.class, ShedProviders.class}, properties = {
+        "igniubi.aysnc.spring.base-packages=com.igniubi.core.aysnc.service.shed",
+        "igniubi.aysnc.spring.thread-number=2",
+        "igniubi.aysnc.spring.admission-control=true",
+        "igniubi.aysnc.spring.shed-policy=caller_runs"})
+public class ShedTests {
+
+    @Autowired
+    protected AysncDataQueryService queryService;
+
+    @Autowired
+    protected ShedProviders providers;
+
+    @Test
+    public void callerRunsAfterOtherDependsSubmitted() throws Exception {
+        Map<String, Object> params = Collections.singletonMap("id", 1);
+        /* 先执行一次得到平均执行时间, 再占满默认线程池 */
+        queryService.get("hold", params, String.class);
+        CompletableFuture<String> first = queryService.getAsync("hold", params, String.class);
+        CompletableFuture<String> second = queryService.getAsync("hold", Collections.singletonMap("id", 2), String.class);
+        Thread.sleep(100);
+
+        assertEquals("probe-1|cpu-1", queryService.get("order", params, String.class));
+        assertTrue("cpuProbe should be submitted before probe runs on the caller",
+                providers.cpuStart.get() < providers.probeEnd.get());
+        first.join();
+        second.join();
+    }
+}
@@ -0,0 +1,58 @@
+package com.igniubi.core.aysnc.service;
+
+import com.igniubi.core.aysnc.config.AysncAutoConfiguration;
+import com.igniubi.core.aysnc.exception.AysncTimeoutException;
+import com.igniubi.core.aysnc.service.singleflight.SingleFlightProviders;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 合并的调用方只等到自己的截止时间
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {AysncAutoConfiguration.class, SingleFlightProviders.class}, properties = {
+        "igniubi.aysnc.spring.base-packages=com.igniubi.core.aysnc.service.singleflight",
+        "igniubi.aysnc.spring.single-flight=true"})
+public class SingleFlightTests {
+
+    @Autowired
+    private AysncDataQueryService queryService;
+
+    @Autowired
+    private SingleFlightProviders providers;
+
+    @Test
+    public void followerIsBoundedByDeadline() throws Exception {
+        Map<String, Object> params = Collections.singletonMap("id", 1);
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> {
+            try {
+                return queryService.get("stall", params, String.class);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(providers.entered.await(5, TimeUnit.SECONDS));
+        long start = System.nanoTime();
+        try {
+            queryService.get("stall", params, String.class);
+            fail("follower should time out");
+        } catch (AysncTimeoutException e) {
+            assertEquals("stall", e.getProviderName());
+        } finally {
+            providers.release.countDown();
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue("elapsed " + elapsed, elapsed >= 190 && elapsed < 2000);
+        assertEquals("stall-1", leader.get(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,82 @@
+package com.igniubi.core.aysnc.service;
+
+import com.igniubi.core.aysnc.config.AysncAutoConfiguration;
+import com.igniubi.core.aysnc.index.AysncProviderIndex;
+import com.igniubi.core.aysnc.service.staleindex.StaleIndexProviders;
+import org.junit.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 索引过期时忽略失效的条目, 改为扫描索引所在的根路径, 不影响启动
+ */
+public class StaleIndexTests {
+
+    private static final String PACKAGE = "com.igniubi.core.aysnc.service.staleindex";
+
+    @Test
+    public void staleEntriesFallBackToScanning() throws Exception {
+        String index = "missing\t" + PACKAGE + ".Removed\tmissing\t\t\n"
+                + "retired\t" + StaleIndexProviders.class.getName() + "\tretired\tjava.lang.Integer\t\n";
+        ClassLoader classLoader = new IndexedClassLoader(getClass().getClassLoader(), index);
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(AysncAutoConfiguration.class, StaleIndexProviders.class)
+                .web(WebApplicationType.NONE)
+                .resourceLoader(new DefaultResourceLoader(classLoader))
+                .run("--igniubi.aysnc.spring.base-packages=" + PACKAGE)) {
+            AysncDataQueryService queryService = context.getBean(AysncDataQueryService.class);
+            assertEquals("fresh-1", queryService.get("fresh", Collections.singletonMap("id", 1), String.class));
+        }
+    }
+
+    /**
+     * 让测试类所在的根路径带上给定的索引
+     */
+    private static class IndexedClassLoader extends ClassLoader {
+
+        private final URL index;
+
+        IndexedClassLoader(ClassLoader parent, String content) throws IOException {
+            super(parent);
+            URL root = StaleIndexProviders.class.getProtectionDomain().getCodeSource().getLocation();
+            byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+            this.index = new URL(null, root.toExternalForm() + AysncProviderIndex.LOCATION, new URLStreamHandler() {
+                @Override
+                protected URLConnection openConnection(URL url) {
+                    return new URLConnection(url) {
+                        @Override
+                        public void connect() {
+                        }
+
+                        @Override
+                        public InputStream getInputStream() {
+                            return new ByteArrayInputStream(bytes);
+                        }
+                    };
+                }
+            });
+        }
+
+        @Override
+        public Enumeration<URL> getResources(String name) throws IOException {
+            if (AysncProviderIndex.LOCATION.equals(name)) {
+                return Collections.enumeration(Collections.singletonList(index));
+            }
+            return super.getResources(name);
+        }
+    }
+}
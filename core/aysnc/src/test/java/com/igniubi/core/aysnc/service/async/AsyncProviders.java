@@ -0,0 +1,23 @@
+package com.igniubi.core.aysnc.service.async;
+
+import com.igniubi.core.aysnc.annotation.AysncConsumer;
+import com.igniubi.core.aysnc.annotation.AysncProvider;
+import com.igniubi.core.aysnc.annotation.InvokeParameter;
+import org.springframework.stereotype.Component;
+
+@Component
+public class AsyncProviders {
+
+    @AysncProvider("id")
+    public String id(@InvokeParameter("id") Integer id) {
+        return "id-" + id;
+    }
+
+    /**
+     * 返回执行根provider的线程
+     */
+    @AysncProvider(value = "rootThread", useCache = false)
+    public String rootThread(@AysncConsumer("id") String id) {
+        return Thread.currentThread().getName();
+    }
+}
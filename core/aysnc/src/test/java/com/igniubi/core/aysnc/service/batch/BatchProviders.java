@@ -0,0 +1,54 @@
+package com.igniubi.core.aysnc.service.batch;
+
+import com.igniubi.core.aysnc.annotation.AysncBatchProvider;
+import com.igniubi.core.aysnc.annotation.AysncConsumer;
+import com.igniubi.core.aysnc.annotation.AysncProvider;
+import com.igniubi.core.aysnc.annotation.InvokeParameter;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+public class BatchProviders {
+
+    public final AtomicInteger batchCalls = new AtomicInteger();
+
+    public final Set<String> batchThreads = Collections.synchronizedSet(new HashSet<>());
+
+    @AysncProvider(value = "user", useCache = false)
+    @AysncBatchProvider(window = 100)
+    public Map<Integer, String> users(@InvokeParameter("userId") Set<Integer> ids) {
+        batchCalls.incrementAndGet();
+        batchThreads.add(Thread.currentThread().getName());
+        try {
+            Thread.sleep(200);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException("batch call interrupted", e);
+        }
+        Map<Integer, String> users = new HashMap<>();
+        for (Integer id : ids) {
+            users.put(id, "user-" + id);
+        }
+        return users;
+    }
+
+    /**
+     * 批量provider作为根查询, 批次窗口加调用时间超过自己的超时
+     */
+    @AysncProvider(value = "hastyRoot", timeout = 100, useCache = false)
+    @AysncBatchProvider(window = 100)
+    public Map<Integer, String> hastyRoot(@InvokeParameter("userId") Set<Integer> ids) {
+        return users(ids);
+    }
+
+    @AysncProvider(value = "hasty", timeout = 100, useCache = false)
+    public String hasty(@AysncConsumer("user") String user) {
+        return "hasty:" + user;
+    }
+
+    @AysncProvider(value = "patient", useCache = false)
+    public String patient(@AysncConsumer("user") String user) {
+        return "patient:" + user;
+    }
+}
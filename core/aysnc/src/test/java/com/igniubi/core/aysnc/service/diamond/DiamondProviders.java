@@ -0,0 +1,57 @@
+package com.igniubi.core.aysnc.service.diamond;
+
+import com.igniubi.core.aysnc.annotation.AysncConsumer;
+import com.igniubi.core.aysnc.annotation.AysncProvider;
+import com.igniubi.core.aysnc.annotation.InvokeParameter;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+public class DiamondProviders {
+
+    public final AtomicInteger sharedCalls = new AtomicInteger();
+
+    /**
+     * 被两个consumer共同依赖
+     */
+    @AysncProvider("shared")
+    public String shared(@InvokeParameter("id") Integer id) throws InterruptedException {
+        sharedCalls.incrementAndGet();
+        Thread.sleep(300);
+        return "shared-" + id;
+    }
+
+    @AysncProvider("left")
+    public String left(@AysncConsumer("shared") String shared) {
+        return "left:" + shared;
+    }
+
+    @AysncProvider("right")
+    public String right(@AysncConsumer("shared") String shared) {
+        return "right:" + shared;
+    }
+
+    @AysncProvider("diamond")
+    public String diamond(@AysncConsumer("left") String left, @AysncConsumer("right") String right) {
+        return left + "|" + right;
+    }
+
+    /**
+     * 等不到shared完成就超时, shared降级为null
+     */
+    @AysncProvider(value = "hasty", timeout = 100)
+    public String hasty(@AysncConsumer("shared") String shared) {
+        return "hasty:" + shared;
+    }
+
+    @AysncProvider("patient")
+    public String patient(@AysncConsumer("shared") String shared) {
+        return "patient:" + shared;
+    }
+
+    @AysncProvider("race")
+    public String race(@AysncConsumer("hasty") String hasty, @AysncConsumer("patient") String patient) {
+        return hasty + "|" + patient;
+    }
+}
@@ -0,0 +1,46 @@
+package com.igniubi.core.aysnc.service.failfast;
+
+import com.igniubi.core.aysnc.annotation.AysncConsumer;
+import com.igniubi.core.aysnc.annotation.AysncProvider;
+import com.igniubi.core.aysnc.annotation.InvokeParameter;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class FailFastProviders {
+
+    public volatile CountDownLatch started = new CountDownLatch(1);
+
+    public volatile CountDownLatch interrupted = new CountDownLatch(1);
+
+    /**
+     * 等兄弟依赖开始执行后失败
+     */
+    @AysncProvider(value = "broken", useCache = false)
+    public String broken(@InvokeParameter("id") Integer id) throws InterruptedException {
+        started.await(1, TimeUnit.SECONDS);
+        throw new IllegalStateException("broken-" + id);
+    }
+
+    /**
+     * 很慢的兄弟依赖, 被取消时记录中断
+     */
+    @AysncProvider(value = "sluggish", timeout = 5000, useCache = false)
+    public String sluggish(@InvokeParameter("id") Integer id) {
+        started.countDown();
+        try {
+            Thread.sleep(3000);
+        } catch (InterruptedException e) {
+            interrupted.countDown();
+            return "cancelled";
+        }
+        return "sluggish-" + id;
+    }
+
+    @AysncProvider(value = "brokenPair", timeout = 5000, useCache = false)
+    public String brokenPair(@AysncConsumer("broken") String broken, @AysncConsumer("sluggish") String sluggish) {
+        return broken + "|" + sluggish;
+    }
+}
@@ -0,0 +1,37 @@
+package com.igniubi.core.aysnc.service.hedge;
+
+import com.igniubi.core.aysnc.annotation.AysncConsumer;
+import com.igniubi.core.aysnc.annotation.AysncProvider;
+import com.igniubi.core.aysnc.annotation.InvokeParameter;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+public class HedgeProviders {
+
+    public final AtomicInteger attempts = new AtomicInteger();
+
+    /**
+     * 第一次调用很慢, 对冲的调用立即返回, 返回执行调用的线程
+     */
+    @AysncProvider(value = "slowOnce", hedgeAfterMillis = 50, useCache = false)
+    public String slowOnce(@InvokeParameter("id") Integer id) {
+        if (attempts.incrementAndGet() == 1) {
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                return "cancelled";
+            }
+        }
+        return Thread.currentThread().getName();
+    }
+
+    /**
+     * 依赖对冲的provider, 返回对冲调用所在的线程
+     */
+    @AysncProvider(value = "hedgedDepend", useCache = false)
+    public String hedgedDepend(@AysncConsumer("slowOnce") String thread) {
+        return thread;
+    }
+}
@@ -0,0 +1,14 @@
+package com.igniubi.core.aysnc.service.limit;
+
+import com.igniubi.core.aysnc.annotation.AysncProvider;
+import com.igniubi.core.aysnc.annotation.InvokeParameter;
+import org.springframework.stereotype.Component;
+
+@Component
+public class LimitProviders {
+
+    @AysncProvider(value = "limited", timeout = 100, useCache = false)
+    public String limited(@InvokeParameter("id") Integer id) {
+        return "limited-" + id;
+    }
+}
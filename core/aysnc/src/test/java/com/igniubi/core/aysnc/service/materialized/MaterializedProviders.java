@@ -0,0 +1,34 @@
+package com.igniubi.core.aysnc.service.materialized;
+
+import com.igniubi.core.aysnc.annotation.AysncConsumer;
+import com.igniubi.core.aysnc.annotation.AysncProvider;
+import com.igniubi.core.aysnc.annotation.InvokeParameter;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+public class MaterializedProviders {
+
+    public final AtomicInteger flakyCalls = new AtomicInteger();
+
+    public final AtomicInteger rootCalls = new AtomicInteger();
+
+    /**
+     * 第一次调用失败, 之后返回调用次数
+     */
+    @AysncProvider("flaky")
+    public String flaky(@InvokeParameter("id") Integer id) {
+        int calls = flakyCalls.incrementAndGet();
+        if (calls == 1) {
+            throw new IllegalStateException("flaky");
+        }
+        return "flaky-" + calls;
+    }
+
+    @AysncProvider(value = "flakyUser", materialized = true)
+    public String flakyUser(@AysncConsumer("flaky") String flaky) {
+        rootCalls.incrementAndGet();
+        return "user:" + flaky;
+    }
+}
@@ -0,0 +1,36 @@
+package com.igniubi.core.aysnc.service.resultcache;
+
+import com.igniubi.core.aysnc.annotation.AysncConsumer;
+import com.igniubi.core.aysnc.annotation.AysncProvider;
+import com.igniubi.core.aysnc.annotation.InvokeParameter;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+public class ResultCacheProviders {
+
+    public final AtomicInteger dictCalls = new AtomicInteger();
+
+    public final AtomicInteger profileCalls = new AtomicInteger();
+
+    @AysncProvider(value = "dict", cacheTtl = 60000)
+    public String dict(@InvokeParameter("id") Integer id) {
+        dictCalls.incrementAndGet();
+        return "dict-" + id;
+    }
+
+    @AysncProvider("level")
+    public String level(@InvokeParameter("id") Integer id) {
+        return "level-" + id;
+    }
+
+    /**
+     * 缓存key中包含依赖level的结果
+     */
+    @AysncProvider(value = "profile", cacheTtl = 60000)
+    public String profile(@InvokeParameter("id") Integer id, @AysncConsumer("level") String level) {
+        profileCalls.incrementAndGet();
+        return "profile-" + id + ":" + level;
+    }
+}
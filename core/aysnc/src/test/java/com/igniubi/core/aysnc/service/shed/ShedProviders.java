@@ -0,0 +1,51 @@
+package com.igniubi.core.aysnc.service.shed;
+
+import com.igniubi.core.aysnc.annotation.AysncConsumer;
+import com.igniubi.core.aysnc.annotation.AysncProvider;
+import com.igniubi.core.aysnc.annotation.InvokeParameter;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class ShedProviders {
+
+    public final AtomicLong probeEnd = new AtomicLong();
+
+    public final AtomicLong cpuStart = new AtomicLong();
+
+    @AysncProvider(value = "busy", useCache = false)
+    public String busy(@InvokeParameter("id") Integer id) throws InterruptedException {
+        Thread.sleep(300);
+        return "busy-" + id;
+    }
+
+    /**
+     * 占住默认线程池的一个线程
+     */
+    @AysncProvider(value = "hold", useCache = false)
+    public String hold(@AysncConsumer("busy") String busy) {
+        return busy;
+    }
+
+    /**
+     * 默认线程池占满时被准入控制拒绝, 由调用方执行
+     */
+    @AysncProvider(value = "probe", timeout = 100, useCache = false)
+    public String probe(@InvokeParameter("id") Integer id) throws InterruptedException {
+        Thread.sleep(50);
+        probeEnd.set(System.nanoTime());
+        return "probe-" + id;
+    }
+
+    @AysncProvider(value = "cpuProbe", executor = AysncProvider.CPU, useCache = false)
+    public String cpuProbe(@InvokeParameter("id") Integer id) {
+        cpuStart.set(System.nanoTime());
+        return "cpu-" + id;
+    }
+
+    @AysncProvider(value = "order", useCache = false)
+    public String order(@AysncConsumer("probe") String probe, @AysncConsumer("cpuProbe") String cpuProbe) {
+        return probe + "|" + cpuProbe;
+    }
+}
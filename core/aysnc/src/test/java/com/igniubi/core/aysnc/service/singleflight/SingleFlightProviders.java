@@ -0,0 +1,26 @@
+package com.igniubi.core.aysnc.service.singleflight;
+
+import com.igniubi.core.aysnc.annotation.AysncProvider;
+import com.igniubi.core.aysnc.annotation.InvokeParameter;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class SingleFlightProviders {
+
+    public volatile CountDownLatch entered = new CountDownLatch(1);
+
+    public volatile CountDownLatch release = new CountDownLatch(1);
+
+    /**
+     * 作为根查询在调用方线程执行, 等待release期间不受自己的超时限制
+     */
+    @AysncProvider(value = "stall", timeout = 200)
+    public String stall(@InvokeParameter("id") Integer id) throws InterruptedException {
+        entered.countDown();
+        release.await(5, TimeUnit.SECONDS);
+        return "stall-" + id;
+    }
+}
@@ -0,0 +1,21 @@
+package com.igniubi.core.aysnc.service.staleindex;
+
+import com.igniubi.core.aysnc.annotation.AysncProvider;
+import com.igniubi.core.aysnc.annotation.InvokeParameter;
+import org.springframework.stereotype.Component;
+
+@Component
+public class StaleIndexProviders {
+
+    @AysncProvider("fresh")
+    public String fresh(@InvokeParameter("id") Integer id) {
+        return "fresh-" + id;
+    }
+
+    /**
+     * 索引生成后去掉了注解的方法
+     */
+    public String retired(Integer id) {
+        return "retired-" + id;
+    }
+}
@@ -0,0 +1,24 @@
+package com.igniubi.core.aysnc.service.timeout;
+
+import com.igniubi.core.aysnc.annotation.AysncConsumer;
+import com.igniubi.core.aysnc.annotation.AysncProvider;
+import com.igniubi.core.aysnc.annotation.InvokeParameter;
+import org.springframework.stereotype.Component;
+
+@Component
+public class TimeoutProviders {
+
+    @AysncProvider(value = "slow", timeout = 100)
+    public String slow(@InvokeParameter("id") Integer id) throws InterruptedException {
+        Thread.sleep(2000);
+        return "slow";
+    }
+
+    /**
+     * 返回执行所在的线程名
+     */
+    @AysncProvider("slowUser")
+    public String slowUser(@AysncConsumer("slow") String slow) {
+        return Thread.currentThread().getName();
+    }
+}
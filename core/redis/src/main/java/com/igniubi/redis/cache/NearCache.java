@@ -0,0 +1,220 @@
+package com.igniubi.redis.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 进程内一级缓存, 缓存redis中的原始字符串, 受条目数/字节数/TTL限制
+ * 按key的hash分段加锁, 每段按访问顺序LRU淘汰, 不同段的读写互不阻塞
+ */
+public class NearCache {
+
+    private static final int MAX_SEGMENTS = 16;
+
+    private final String prefix;
+
+    private final long ttlMillis;
+
+    private final Segment[] segments;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder invalidations = new LongAdder();
+
+    public NearCache(String prefix, int maxEntries, long maxBytes, long ttlMillis) {
+        this.prefix = prefix;
+        this.ttlMillis = ttlMillis;
+        int segmentCount = Math.max(1, Math.min(MAX_SEGMENTS, maxEntries / MAX_SEGMENTS));
+        this.segments = new Segment[segmentCount];
+        int capacity = (maxEntries + segmentCount - 1) / segmentCount;
+        long byteCapacity = maxBytes > 0 ? (maxBytes + segmentCount - 1) / segmentCount : Long.MAX_VALUE;
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(capacity, byteCapacity);
+        }
+    }
+
+    public String get(String key) {
+        Segment segment = segmentFor(key);
+        Entry entry;
+        synchronized (segment) {
+            entry = segment.entries.get(key);
+            if (entry != null && entry.expireAt < System.currentTimeMillis()) {
+                segment.remove(key);
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * key所在分段的代数, 每次失效递增, 读redis前后代数不一致时不回填, 避免失效期间读到的旧值被放入缓存
+     */
+    public long generation(String key) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.generation;
+        }
+    }
+
+    public void put(String key, String value, long generation) {
+        if (value == null) {
+            return;
+        }
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            if (generation != segment.generation) {
+                return;
+            }
+            segment.put(key, new Entry(value, System.currentTimeMillis() + ttlMillis));
+        }
+    }
+
+    public void invalidate(String key) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.generation++;
+            segment.remove(key);
+        }
+        invalidations.increment();
+    }
+
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.generation++;
+                segment.entries.clear();
+                segment.bytes = 0;
+            }
+        }
+        invalidations.increment();
+    }
+
+    private Segment segmentFor(String key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return segments[(hash & Integer.MAX_VALUE) % segments.length];
+    }
+
+    private static long sizeOf(String key, String value) {
+        return 2L * (key.length() + value.length());
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+
+    public long getBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                bytes += segment.bytes;
+            }
+        }
+        return bytes;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    public double getHitRate() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0D : (double) hit / total;
+    }
+
+    @Override
+    public String toString() {
+        return "NearCache{prefix=" + prefix + ", size=" + size() + ", bytes=" + getBytes() + ", hits=" + getHits()
+                + ", misses=" + getMisses() + ", evictions=" + getEvictions() + ", hitRate=" + getHitRate() + "}";
+    }
+
+    private static class Entry {
+        private final String value;
+        private final long expireAt;
+
+        private Entry(String value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+
+    /**
+     * 一个分段, 只在持有分段的锁时访问
+     */
+    private final class Segment {
+
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        private final int capacity;
+
+        private final long byteCapacity;
+
+        private long bytes;
+
+        private long generation;
+
+        private Segment(int capacity, long byteCapacity) {
+            this.capacity = capacity;
+            this.byteCapacity = byteCapacity;
+        }
+
+        private void put(String key, Entry entry) {
+            remove(key);
+            long size = sizeOf(key, entry.value);
+            if (size > byteCapacity) {
+                /* 单个值超过分段上限, 缓存它会挤掉整个分段 */
+                return;
+            }
+            entries.put(key, entry);
+            bytes += size;
+            Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+            while (entries.size() > capacity || bytes > byteCapacity) {
+                Map.Entry<String, Entry> eldest = iterator.next();
+                bytes -= sizeOf(eldest.getKey(), eldest.getValue().value);
+                iterator.remove();
+                evictions.increment();
+            }
+        }
+
+        private void remove(String key) {
+            Entry old = entries.remove(key);
+            if (old != null) {
+                bytes -= sizeOf(key, old.value);
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.igniubi.redis.cache;
+
+import com.igniubi.model.enums.common.RedisKeyEnum;
+import com.igniubi.redis.config.RedisOperationsProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.util.Assert;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按key前缀(RedisKeyEnum.getCacheKey)管理一级缓存, 写入时本地失效并通过pub/sub通知其他节点失效
+ */
+public class NearCacheManager implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(NearCacheManager.class);
+
+    private static final String SEPARATOR = "|";
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    private final RedisOperationsProperties.NearCache properties;
+
+    /**
+     * 区分消息来源, 自己发出的失效消息不再处理
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Map<String, NearCache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * 已注册前缀的长度, 从长到短, 查找时按长度截取key到caches中查
+     */
+    private volatile int[] prefixLengths = new int[0];
+
+    public NearCacheManager(RedisTemplate<String, String> redisTemplate, RedisOperationsProperties.NearCache properties) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties;
+        properties.getKeys().forEach((prefix, spec) -> register(prefix, spec.getMaxEntries(), spec.getMaxBytes(),
+                spec.getTtl().toMillis(), TimeUnit.MILLISECONDS));
+    }
+
+    public NearCache register(RedisKeyEnum keyEnum, int maxEntries, long maxBytes, long ttl, TimeUnit unit) {
+        return register(keyEnum.getCacheKey(), maxEntries, maxBytes, ttl, unit);
+    }
+
+    public NearCache register(String prefix, int maxEntries, long maxBytes, long ttl, TimeUnit unit) {
+        Assert.hasText(prefix, "near cache prefix must not be empty");
+        Assert.isTrue(maxEntries > 0, "near cache maxEntries must be positive");
+        Assert.isTrue(ttl > 0, "near cache ttl must be positive");
+        NearCache cache = new NearCache(prefix, maxEntries, maxBytes, unit.toMillis(ttl));
+        synchronized (caches) {
+            caches.put(prefix, cache);
+            prefixLengths = caches.keySet().stream().mapToInt(String::length).distinct()
+                    .map(length -> -length).sorted().map(length -> -length).toArray();
+        }
+        return cache;
+    }
+
+    /**
+     * 最长前缀匹配, 没有配置时返回null
+     */
+    public NearCache cacheOf(String key) {
+        for (int length : prefixLengths) {
+            if (length <= key.length()) {
+                NearCache cache = caches.get(key.substring(0, length));
+                if (cache != null) {
+                    return cache;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * key被写入后调用, 只有配置了一级缓存的key才会发布失效消息
+     */
+    public void onWrite(String key) {
+        NearCache cache = cacheOf(key);
+        if (cache == null) {
+            return;
+        }
+        cache.invalidate(key);
+        try {
+            redisTemplate.convertAndSend(properties.getChannel(), nodeId + SEPARATOR + key);
+        } catch (Exception e) {
+            logger.warn("RedisUtil near cache publish error, key is {}, e is {}", key, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int index = body.indexOf(SEPARATOR);
+        if (index < 0 || body.substring(0, index).equals(nodeId)) {
+            return;
+        }
+        String key = body.substring(index + 1);
+        NearCache cache = cacheOf(key);
+        if (cache != null) {
+            cache.invalidate(key);
+        }
+    }
+
+    public void invalidateAll() {
+        caches.values().forEach(NearCache::invalidateAll);
+    }
+
+    public Collection<NearCache> caches() {
+        return caches.values();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+}
@@ -0,0 +1,41 @@
+package com.igniubi.redis.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * 把每个前缀的一级缓存指标注册到MeterRegistry, 以prefix标签区分
+ */
+public class NearCacheMetrics implements MeterBinder {
+
+    private static final String PREFIX_TAG = "prefix";
+
+    private final NearCacheManager nearCacheManager;
+
+    public NearCacheMetrics(NearCacheManager nearCacheManager) {
+        this.nearCacheManager = nearCacheManager;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (NearCache cache : nearCacheManager.caches()) {
+            String prefix = cache.getPrefix();
+            FunctionCounter.builder("redis.near.cache.hits", cache, NearCache::getHits)
+                    .tag(PREFIX_TAG, prefix).register(registry);
+            FunctionCounter.builder("redis.near.cache.misses", cache, NearCache::getMisses)
+                    .tag(PREFIX_TAG, prefix).register(registry);
+            FunctionCounter.builder("redis.near.cache.evictions", cache, NearCache::getEvictions)
+                    .tag(PREFIX_TAG, prefix).register(registry);
+            FunctionCounter.builder("redis.near.cache.invalidations", cache, NearCache::getInvalidations)
+                    .tag(PREFIX_TAG, prefix).register(registry);
+            Gauge.builder("redis.near.cache.hit.rate", cache, NearCache::getHitRate)
+                    .tag(PREFIX_TAG, prefix).register(registry);
+            Gauge.builder("redis.near.cache.size", cache, NearCache::size)
+                    .tag(PREFIX_TAG, prefix).register(registry);
+            Gauge.builder("redis.near.cache.bytes", cache, NearCache::getBytes)
+                    .tag(PREFIX_TAG, prefix).baseUnit("bytes").register(registry);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.igniubi.redis.config;
+
+import com.igniubi.redis.cache.NearCacheManager;
+import com.igniubi.redis.cache.NearCacheMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * igniubi.redis.near-cache.enabled=true时启用一级缓存
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "igniubi.redis.near-cache", name = "enabled", havingValue = "true")
+public class NearCacheConfig {
+
+    @Bean
+    public NearCacheManager nearCacheManager(RedisTemplate<String, String> stringRedisTemplate,
+                                             RedisOperationsProperties properties) {
+        return new NearCacheManager(stringRedisTemplate, properties.getNearCache());
+    }
+
+    @Bean
+    public RedisMessageListenerContainer nearCacheListenerContainer(RedisConnectionFactory factory,
+                                                                    NearCacheManager nearCacheManager,
+                                                                    RedisOperationsProperties properties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(factory);
+        container.addMessageListener(nearCacheManager, new ChannelTopic(properties.getNearCache().getChannel()));
+        return container;
+    }
+
+    /**
+     * classpath中有Micrometer时, 容器启动完成后注册每个前缀的命中率等指标, 没有MeterRegistry时不做任何事
+     */
+    @Configuration
+    @ConditionalOnClass(MeterRegistry.class)
+    static class NearCacheMetricsConfiguration implements SmartInitializingSingleton {
+
+        @Autowired
+        private ObjectProvider<MeterRegistry> meterRegistry;
+
+        @Autowired
+        private NearCacheManager nearCacheManager;
+
+        @Override
+        public void afterSingletonsInstantiated() {
+            MeterRegistry registry = meterRegistry.getIfUnique();
+            if (registry != null) {
+                new NearCacheMetrics(nearCacheManager).bindTo(registry);
+            }
+        }
+    }
+}
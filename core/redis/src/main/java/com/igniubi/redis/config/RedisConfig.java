@@ -1,13 +1,16 @@
 package com.igniubi.redis.config;
 
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 
 @Configuration
+@EnableConfigurationProperties(RedisOperationsProperties.class)
 public class RedisConfig {
 
 
@@ -36,4 +39,19 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
+
+    /**
+     * cacheObtain软过期后台刷新的线程池, 容器关闭时停止, 不等待未执行的刷新
+     */
+    @Bean(name = "cacheRefreshExecutor")
+    public ThreadPoolTaskExecutor cacheRefreshExecutor(RedisOperationsProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getRefresh().getThreads());
+        executor.setMaxPoolSize(properties.getRefresh().getThreads());
+        executor.setQueueCapacity(properties.getRefresh().getQueueCapacity());
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setDaemon(true);
+        executor.setThreadNamePrefix("igniubi-cache-refresh-");
+        return executor;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package com.igniubi.redis.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "igniubi.redis")
+@Data
+public class RedisOperationsProperties {
+
+    /**
+     * 批量读写时单次MGET或单个pipeline的最大key数量, 超过时分批发送
+     */
+    private int maxBatchSize = 100;
+
+    /**
+     * 绑定时校验, 不大于0时分批循环无法前进
+     */
+    public void setMaxBatchSize(int maxBatchSize) {
+        Assert.isTrue(maxBatchSize > 0, "igniubi.redis.max-batch-size must be positive");
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    private NearCache nearCache = new NearCache();
+
+    private Refresh refresh = new Refresh();
+
+    @Data
+    public static class Refresh {
+
+        /**
+         * Threads refreshing soft-expired cacheObtain entries in the background.
+         */
+        private int threads = 4;
+
+        /**
+         * Pending refreshes queued before new ones are dropped, the stale value is served meanwhile.
+         */
+        private int queueCapacity = 1024;
+    }
+
+    @Data
+    public static class NearCache {
+
+        /**
+         * Whether to keep an in-process cache in front of RedisValueOperations.get.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Pub/sub channel used to broadcast invalidations when a cached key is written.
+         */
+        private String channel = "igniubi:near-cache:invalidate";
+
+        /**
+         * Per key-prefix settings, keyed by RedisKeyEnum#getCacheKey. Keys without a
+         * matching prefix are not cached locally.
+         */
+        private Map<String, Spec> keys = new LinkedHashMap<>();
+    }
+
+    @Data
+    public static class Spec {
+
+        /**
+         * Maximum number of entries kept for the prefix.
+         */
+        private int maxEntries = 1000;
+
+        /**
+         * Maximum approximate size in bytes of keys and values, 0 for no limit.
+         */
+        private long maxBytes = 0;
+
+        /**
+         * Time to live of a local entry, bounds staleness if an invalidation is lost.
+         */
+        private Duration ttl = Duration.ofSeconds(10);
+    }
+}
@@ -0,0 +1,178 @@
+package com.igniubi.redis.operations;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONObject;
+import com.igniubi.redis.util.RedisKeyBuilder;
+import com.igniubi.redis.util.RedisScripts;
+import com.igniubi.redis.util.SerializeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 批量命令: 先收集value/list/zset命令, execute时通过pipeline发送, 超过maxBatchSize时分多个pipeline.
+ * 序列化方式与RedisValueOperations/RedisListOperations/RedisZsetOperations一致, 非线程安全
+ */
+public class RedisBatch {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisBatch.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+
+    private final RedisSerializer<String> serializer;
+
+    private final int maxBatchSize;
+
+    /**
+     * value写入后回调, 用于失效一级缓存
+     */
+    private final Consumer<String> onWrite;
+
+    private final List<Command> commands = new ArrayList<>();
+
+    public RedisBatch(RedisTemplate<String, String> redisTemplate, int maxBatchSize) {
+        this(redisTemplate, maxBatchSize, key -> { });
+    }
+
+    public RedisBatch(RedisTemplate<String, String> redisTemplate, int maxBatchSize, Consumer<String> onWrite) {
+        Assert.isTrue(maxBatchSize > 0, "maxBatchSize must be positive");
+        this.redisTemplate = redisTemplate;
+        this.serializer = redisTemplate.getStringSerializer();
+        this.maxBatchSize = maxBatchSize;
+        this.onWrite = onWrite;
+    }
+
+    public <T> RedisBatch get(RedisKeyBuilder keyBuilder, Class<T> tClass) {
+        byte[] key = serializer.serialize(keyBuilder.getKey());
+        return add(keyBuilder, connection -> connection.stringCommands().get(key),
+                result -> JSONObject.parseObject((String) result, tClass), false);
+    }
+
+    public RedisBatch set(RedisKeyBuilder keyBuilder, Object value, long timeout, TimeUnit unit) {
+        byte[] key = serializer.serialize(keyBuilder.getKey());
+        byte[] json = serializer.serialize(JSON.toJSONString(value));
+        return add(keyBuilder, connection -> connection.stringCommands().set(key, json,
+                Expiration.from(timeout, unit), RedisStringCommands.SetOption.UPSERT), Function.identity(), true);
+    }
+
+    public RedisBatch increament(RedisKeyBuilder keyBuilder, long value, long timeout, TimeUnit unit) {
+        return script(keyBuilder, RedisScripts.INCRBY_PEXPIRE, true, String.valueOf(value),
+                String.valueOf(unit.toMillis(timeout)));
+    }
+
+    public <T> RedisBatch rightPush(RedisKeyBuilder keyBuilder, T o, long time, TimeUnit unit) {
+        return script(keyBuilder, RedisScripts.RPUSH_PEXPIRE, false, SerializeUtils.value2String(o),
+                String.valueOf(unit.toMillis(time)));
+    }
+
+    public <T> RedisBatch leftPush(RedisKeyBuilder keyBuilder, T o, long time, TimeUnit unit) {
+        return script(keyBuilder, RedisScripts.LPUSH_PEXPIRE, false, SerializeUtils.value2String(o),
+                String.valueOf(unit.toMillis(time)));
+    }
+
+    public <T> RedisBatch zAdd(RedisKeyBuilder keyBuilder, T o, Double score, long time, TimeUnit unit) {
+        script(keyBuilder, RedisScripts.ZADD_PEXPIRE, false, SerializeUtils.value2String(o), String.valueOf(score),
+                String.valueOf(unit.toMillis(time)));
+        /* 与RedisZsetOperations.zAdd一致, 返回是否新增 */
+        Command command = commands.get(commands.size() - 1);
+        commands.set(commands.size() - 1, new Command(command.key, command.write,
+                result -> result != null && (Long) result > 0, false));
+        return this;
+    }
+
+    /**
+     * pipeline中不能在NOSCRIPT时回退, 直接用EVAL发送脚本
+     */
+    private RedisBatch script(RedisKeyBuilder keyBuilder, RedisScript<Long> script, boolean valueWrite, String... args) {
+        byte[][] keysAndArgs = new byte[args.length + 1][];
+        keysAndArgs[0] = serializer.serialize(keyBuilder.getKey());
+        for (int i = 0; i < args.length; i++) {
+            keysAndArgs[i + 1] = serializer.serialize(args[i]);
+        }
+        byte[] body = serializer.serialize(script.getScriptAsString());
+        return add(keyBuilder, connection -> connection.scriptingCommands().eval(body, ReturnType.INTEGER, 1, keysAndArgs),
+                Function.identity(), valueWrite);
+    }
+
+    private RedisBatch add(RedisKeyBuilder keyBuilder, Consumer<RedisConnection> write, Function<Object, Object> read,
+                           boolean valueWrite) {
+        commands.add(new Command(keyBuilder.getKey(), write, read, valueWrite));
+        return this;
+    }
+
+    public int size() {
+        return commands.size();
+    }
+
+    /**
+     * 发送所有命令并清空, 结果与命令顺序一致, 失败的批次对应的结果为null.
+     * 所有批次发送完成后对每个value写入(set/increament)的key回调onWrite
+     *
+     * @return 每个命令反序列化后的结果
+     */
+    public List<Object> execute() {
+        if (commands.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Object> results = new ArrayList<>(commands.size());
+        for (int from = 0; from < commands.size(); from += maxBatchSize) {
+            List<Command> chunk = commands.subList(from, Math.min(from + maxBatchSize, commands.size()));
+            try {
+                List<Object> raw = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    for (Command command : chunk) {
+                        command.write.accept(connection);
+                    }
+                    return null;
+                });
+                for (int i = 0; i < chunk.size(); i++) {
+                    results.add(chunk.get(i).read.apply(raw.get(i)));
+                }
+            } catch (Exception e) {
+                logger.warn("RedisUtil pipeline error, first key is {}, e is {}", chunk.get(0).key, e);
+                for (int i = 0; i < chunk.size(); i++) {
+                    results.add(null);
+                }
+            }
+        }
+        /* 失败的pipeline可能已执行了部分命令, 同样失效 */
+        for (Command command : commands) {
+            if (command.valueWrite) {
+                onWrite.accept(command.key);
+            }
+        }
+        commands.clear();
+        return results;
+    }
+
+    private static class Command {
+        private final String key;
+        private final Consumer<RedisConnection> write;
+        private final Function<Object, Object> read;
+        /**
+         * 是否写入value类型的key, 写入后需要失效一级缓存
+         */
+        private final boolean valueWrite;
+
+        private Command(String key, Consumer<RedisConnection> write, Function<Object, Object> read, boolean valueWrite) {
+            this.key = key;
+            this.write = write;
+            this.read = read;
+            this.valueWrite = valueWrite;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.igniubi.redis.operations;
 
 import com.igniubi.redis.util.RedisKeyBuilder;
+import com.igniubi.redis.util.RedisScripts;
 import com.igniubi.redis.util.SerializeUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,6 +13,7 @@ import org.springframework.data.redis.core.ZSetOperations;
 import org.springframework.stereotype.Component;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -36,8 +38,8 @@ public class RedisListOperations {
     public <T> void rightPush(RedisKeyBuilder keyBuilder, T o, long time, TimeUnit unit) {
         try {
             String value = SerializeUtils.value2String(o);
-            listOperations.rightPush(keyBuilder.getKey(), value);
-            redisTemplate.expire(keyBuilder.getKey(), time, unit);
+            redisTemplate.execute(RedisScripts.RPUSH_PEXPIRE, Collections.singletonList(keyBuilder.getKey()),
+                    value, String.valueOf(unit.toMillis(time)));
         } catch (Exception e) {
             logger.warn("RedisUtil get error, key is {}, e is {}", keyBuilder.getKey(), e);
         }
@@ -46,8 +48,8 @@ public class RedisListOperations {
     public <T> void leftPush(RedisKeyBuilder keyBuilder, T o, long time, TimeUnit unit) {
         try {
             String value = SerializeUtils.value2String(o);
-            listOperations.leftPush(keyBuilder.getKey(), value);
-            redisTemplate.expire(keyBuilder.getKey(), time, unit);
+            redisTemplate.execute(RedisScripts.LPUSH_PEXPIRE, Collections.singletonList(keyBuilder.getKey()),
+                    value, String.valueOf(unit.toMillis(time)));
         } catch (Exception e) {
             logger.warn("RedisUtil get error, key is {}, e is {}", keyBuilder.getKey(), e);
         }
@@ -2,16 +2,24 @@ package com.igniubi.redis.operations;
 
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
+import com.igniubi.redis.cache.NearCache;
+import com.igniubi.redis.cache.NearCacheManager;
+import com.igniubi.redis.config.RedisOperationsProperties;
 import com.igniubi.redis.util.RedisKeyBuilder;
+import com.igniubi.redis.util.RedisScripts;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
-import org.springframework.data.redis.core.ZSetOperations;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 @Component
@@ -23,17 +31,45 @@ public class RedisValueOperations {
 
     private ValueOperations<String, String> valueOperations;
 
+    private RedisOperationsProperties properties = new RedisOperationsProperties();
+
+    private NearCacheManager nearCacheManager;
+
+    private Executor refreshExecutor;
+
     @Autowired
     public RedisValueOperations(RedisTemplate<String, String> stringRedisTemplate) {
         this.stringRedisTemplate = stringRedisTemplate;
         valueOperations = stringRedisTemplate.opsForValue();
     }
 
+    @Autowired(required = false)
+    public void setProperties(RedisOperationsProperties properties) {
+        this.properties = properties;
+    }
+
+    @Autowired(required = false)
+    public void setNearCacheManager(NearCacheManager nearCacheManager) {
+        this.nearCacheManager = nearCacheManager;
+    }
+
+    /**
+     * RedisOperationsUtil.cacheObtain后台刷新使用的线程池, 随spring容器关闭
+     */
+    @Autowired(required = false)
+    public void setRefreshExecutor(@Qualifier("cacheRefreshExecutor") Executor refreshExecutor) {
+        this.refreshExecutor = refreshExecutor;
+    }
+
+    public Executor getRefreshExecutor() {
+        return refreshExecutor;
+    }
+
     public <T> T get(RedisKeyBuilder keyBuilder, Class<T> tClass) {
         String result;
         T t = null;
         try {
-            result = valueOperations.get(keyBuilder.getKey());
+            result = read(keyBuilder.getKey());
             t = JSONObject.parseObject(result, tClass);
         } catch (Exception e) {
             logger.warn("RedisUtil get error, key is {}, e is {}", keyBuilder.getKey(), e);
@@ -41,9 +77,21 @@ public class RedisValueOperations {
         return t;
     }
 
+    /**
+     * 读取原始字符串, 不做json反序列化
+     */
+    public String getString(RedisKeyBuilder keyBuilder) {
+        try {
+            return read(keyBuilder.getKey());
+        } catch (Exception e) {
+            logger.warn("RedisUtil getString error, key is {}, e is {}", keyBuilder.getKey(), e);
+        }
+        return null;
+    }
+
     public <T> List<T> getList(RedisKeyBuilder keyBuilder, Class<T> clazz) {
         try {
-            String result = valueOperations.get(keyBuilder.getKey());
+            String result = read(keyBuilder.getKey());
             return JSON.parseArray(result, clazz);
         } catch (Exception e) {
             logger.warn("RedisUtil getList error, key is {}, e is {}", keyBuilder.getKey(), e);
@@ -54,20 +102,129 @@ public class RedisValueOperations {
     public void set(RedisKeyBuilder keyBuilder, Object value, long timeout, TimeUnit unit) {
         try {
             valueOperations.set(keyBuilder.getKey(), JSON.toJSONString(value), timeout, unit);
+            written(keyBuilder.getKey());
         } catch (Exception e) {
             logger.warn("RedisUtil set error, key is {}, e is {}", keyBuilder.getKey(), e);
         }
     }
 
+    /**
+     * 写入原始字符串, 不做json序列化
+     */
+    public void setString(RedisKeyBuilder keyBuilder, String value, long timeout, TimeUnit unit) {
+        try {
+            valueOperations.set(keyBuilder.getKey(), value, timeout, unit);
+            written(keyBuilder.getKey());
+        } catch (Exception e) {
+            logger.warn("RedisUtil setString error, key is {}, e is {}", keyBuilder.getKey(), e);
+        }
+    }
+
     public Long increament(RedisKeyBuilder keyBuilder, long value, long timeout, TimeUnit unit) {
         Long result = null;
         try {
-            result = valueOperations.increment(keyBuilder.getKey(), value);
-            stringRedisTemplate.boundValueOps(keyBuilder.getKey()).expire(timeout, unit);
+            result = stringRedisTemplate.execute(RedisScripts.INCRBY_PEXPIRE, Collections.singletonList(keyBuilder.getKey()),
+                    String.valueOf(value), String.valueOf(unit.toMillis(timeout)));
+            written(keyBuilder.getKey());
         } catch (Exception e) {
             logger.warn("RedisUtil set error, key is {}, e is {}", keyBuilder.getKey(), e);
         }
         return result;
     }
 
+    /**
+     * SET NX PX加锁, redis异常时视为加锁成功, 避免redis不可用时所有调用方都等待锁
+     */
+    public boolean tryLock(RedisKeyBuilder keyBuilder, String token, long timeout, TimeUnit unit) {
+        try {
+            return Boolean.TRUE.equals(valueOperations.setIfAbsent(keyBuilder.getKey(), token, timeout, unit));
+        } catch (Exception e) {
+            logger.warn("RedisUtil tryLock error, key is {}, e is {}", keyBuilder.getKey(), e);
+        }
+        return true;
+    }
+
+    public void unlock(RedisKeyBuilder keyBuilder, String token) {
+        try {
+            stringRedisTemplate.execute(RedisScripts.UNLOCK, Collections.singletonList(keyBuilder.getKey()), token);
+        } catch (Exception e) {
+            logger.warn("RedisUtil unlock error, key is {}, e is {}", keyBuilder.getKey(), e);
+        }
+    }
+
+    /**
+     * 批量获取, 按maxBatchSize分批MGET, 返回结果与keyBuilders顺序一致, 不存在或失败的位置为null
+     */
+    public <T> List<T> multiGet(List<RedisKeyBuilder> keyBuilders, Class<T> tClass) {
+        List<T> values = new ArrayList<>(keyBuilders.size());
+        int batchSize = properties.getMaxBatchSize();
+        for (int from = 0; from < keyBuilders.size(); from += batchSize) {
+            List<RedisKeyBuilder> chunk = keyBuilders.subList(from, Math.min(from + batchSize, keyBuilders.size()));
+            List<String> keys = new ArrayList<>(chunk.size());
+            for (RedisKeyBuilder keyBuilder : chunk) {
+                keys.add(keyBuilder.getKey());
+            }
+            List<String> results = null;
+            try {
+                results = valueOperations.multiGet(keys);
+            } catch (Exception e) {
+                logger.warn("RedisUtil multiGet error, first key is {}, e is {}", keys.get(0), e);
+            }
+            for (int i = 0; i < keys.size(); i++) {
+                values.add(results == null ? null : parse(keys.get(i), results.get(i), tClass));
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 批量设置, MSET不支持过期时间, 按maxBatchSize分批用pipeline发送SET PX
+     */
+    public void multiSet(Map<RedisKeyBuilder, Object> values, long timeout, TimeUnit unit) {
+        RedisBatch batch = batch();
+        values.forEach((keyBuilder, value) -> batch.set(keyBuilder, value, timeout, unit));
+        batch.execute();
+    }
+
+    /**
+     * 创建批量命令, 可混合value/list/zset命令, execute时按maxBatchSize分批pipeline发送.
+     * 批量读取不经过一级缓存, set/increament发送成功后失效一级缓存
+     */
+    public RedisBatch batch() {
+        return new RedisBatch(stringRedisTemplate, properties.getMaxBatchSize(), this::written);
+    }
+
+    /**
+     * 配置了一级缓存的key先读本地, 未命中再读redis并回填
+     */
+    private String read(String key) {
+        NearCache cache = nearCacheManager == null ? null : nearCacheManager.cacheOf(key);
+        if (cache == null) {
+            return valueOperations.get(key);
+        }
+        String result = cache.get(key);
+        if (result != null) {
+            return result;
+        }
+        long generation = cache.generation(key);
+        result = valueOperations.get(key);
+        cache.put(key, result, generation);
+        return result;
+    }
+
+    private void written(String key) {
+        if (nearCacheManager != null) {
+            nearCacheManager.onWrite(key);
+        }
+    }
+
+    private <T> T parse(String key, String result, Class<T> tClass) {
+        try {
+            return JSONObject.parseObject(result, tClass);
+        } catch (Exception e) {
+            logger.warn("RedisUtil multiGet parse error, key is {}, e is {}", key, e);
+        }
+        return null;
+    }
+
 }
@@ -1,6 +1,7 @@
 package com.igniubi.redis.operations;
 
 import com.igniubi.redis.util.RedisKeyBuilder;
+import com.igniubi.redis.util.RedisScripts;
 import com.igniubi.redis.util.SerializeUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -11,6 +12,7 @@ import org.springframework.data.redis.core.ZSetOperations;
 import org.springframework.stereotype.Component;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
@@ -36,8 +38,9 @@ public class RedisZsetOperations {
         Boolean result = Boolean.FALSE;
         try {
             String value = SerializeUtils.value2String(o);
-            result = zSetOperations.add(keyBuilder.getKey(), value, score);
-            redisTemplate.expire(keyBuilder.getKey(), time, unit);
+            Long added = redisTemplate.execute(RedisScripts.ZADD_PEXPIRE, Collections.singletonList(keyBuilder.getKey()),
+                    value, String.valueOf(score), String.valueOf(unit.toMillis(time)));
+            result = added != null && added > 0;
         } catch (Exception e) {
             logger.warn("RedisUtil get error, key is {}, e is {}", keyBuilder.getKey(), e);
         }
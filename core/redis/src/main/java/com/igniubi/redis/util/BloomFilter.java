@@ -0,0 +1,108 @@
+package com.igniubi.redis.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 进程内布隆过滤器, 记录合法的id, cacheObtain时拦截一定不存在的key.
+ * 只会误判存在, 不会误判不存在; 新增的id需要调用put, 线程安全
+ */
+public class BloomFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(BloomFilter.class);
+
+    private final AtomicLongArray bits;
+
+    private final long bitSize;
+
+    private final int hashFunctions;
+
+    /**
+     * mightContain判定不存在的次数
+     */
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * @param expectedInsertions 预计的id数量
+     * @param fpp                期望的误判率
+     */
+    public BloomFilter(long expectedInsertions, double fpp) {
+        Assert.isTrue(expectedInsertions > 0, "expectedInsertions must be positive");
+        Assert.isTrue(fpp > 0 && fpp < 1, "fpp must be in (0, 1)");
+        long size = (long) (-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        this.bits = new AtomicLongArray((int) Math.max(1, (size + 63) >>> 6));
+        this.bitSize = bits.length() * 64L;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+    }
+
+    public void put(Object key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            long index = ((h1 + i * h2) & Long.MAX_VALUE) % bitSize;
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long old;
+            while (((old = bits.get(word)) & mask) == 0) {
+                if (bits.compareAndSet(word, old, old | mask)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    public boolean mightContain(Object key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            long index = ((h1 + i * h2) & Long.MAX_VALUE) % bitSize;
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                rejected.incrementAndGet();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * 从loader加载所有合法id, 加载失败时返回false, 已写入的id保留
+     */
+    public boolean warm(Callable<? extends Iterable<?>> loader) {
+        try {
+            for (Object key : loader.call()) {
+                put(key);
+            }
+            return true;
+        } catch (Exception e) {
+            logger.warn("BloomFilter warm error, e is {}", e);
+        }
+        return false;
+    }
+
+    /**
+     * 与cacheObtain拼接key一致, 按toString计算, 64位FNV-1a后再做一次混淆
+     */
+    private static long hash(Object key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : String.valueOf(key).getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,50 @@
+package com.igniubi.redis.util;
+
+import com.alibaba.fastjson.JSON;
+import lombok.Data;
+
+/**
+ * 开启软过期或XFetch时redis中保存的内容, 以MARKER开头与普通格式的json区分,
+ * 两种格式可以互相读取
+ */
+@Data
+public class CacheEnvelope {
+
+    /**
+     * envelope格式的前缀, 合法的json不会以它开头
+     */
+    public static final String MARKER = "env1|";
+
+    /**
+     * 业务值的json
+     */
+    private String value;
+
+    /**
+     * 软过期时间戳, 没有配置软过期时为硬过期时间
+     */
+    private long softExpireAt;
+
+    /**
+     * 上次加载耗时毫秒数, XFetch使用
+     */
+    private long delta;
+
+    public static String encode(CacheEnvelope envelope) {
+        return MARKER + JSON.toJSONString(envelope);
+    }
+
+    public static boolean isEnvelope(String raw) {
+        return raw != null && raw.startsWith(MARKER);
+    }
+
+    /**
+     * @return 不是envelope格式时返回null
+     */
+    public static CacheEnvelope decode(String raw) {
+        if (! isEnvelope(raw)) {
+            return null;
+        }
+        return JSON.parseObject(raw.substring(MARKER.length()), CacheEnvelope.class);
+    }
+}
@@ -0,0 +1,167 @@
+package com.igniubi.redis.util;
+
+import org.springframework.util.Assert;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * cacheObtain的可选行为, 默认只在JVM内对同一个key合并加载.
+ * 同一类key的所有调用方需要使用一致的softTtl/xfetch配置, 开启后redis中保存的是CacheEnvelope
+ */
+public class CacheObtainOptions {
+
+    public static final CacheObtainOptions DEFAULT = new CacheObtainOptions();
+
+    /**
+     * 没有配置分布式锁和loadWait时, 等待JVM内其他调用方加载的最长毫秒数
+     */
+    public static final long DEFAULT_LOAD_WAIT_MILLIS = 3000;
+
+    /**
+     * 分布式锁过期毫秒数, 0表示不加分布式锁
+     */
+    private long lockTtlMillis;
+
+    /**
+     * 没拿到锁时等待其他节点回填的最长毫秒数, 超时后自己加载
+     */
+    private long lockWaitMillis;
+
+    private long lockPollMillis = 50;
+
+    /**
+     * 等待JVM内其他调用方加载的最长毫秒数, 超时后自己加载, 0表示按锁的等待时间和过期时间计算
+     */
+    private long loadWaitMillis;
+
+    /**
+     * 软过期毫秒数, 超过后仍返回旧值并在后台刷新, 0表示不开启
+     */
+    private long softTtlMillis;
+
+    /**
+     * XFetch提前过期系数, 越大越早刷新, 0表示不开启
+     */
+    private double xfetchBeta;
+
+    private Executor refreshExecutor;
+
+    /**
+     * 空值缓存毫秒数, 0时使用NegativeCacheRegistry中RedisKeyEnum的配置
+     */
+    private long negativeTtlMillis;
+
+    /**
+     * 合法id的布隆过滤器, 判定不存在的key直接返回null
+     */
+    private BloomFilter bloomFilter;
+
+    public static CacheObtainOptions newInstance() {
+        return new CacheObtainOptions();
+    }
+
+    public CacheObtainOptions distributedLock(long lockTtl, long lockWait, TimeUnit unit) {
+        Assert.isTrue(this != DEFAULT, "DEFAULT options are immutable");
+        Assert.isTrue(lockTtl > 0, "lockTtl must be positive");
+        this.lockTtlMillis = unit.toMillis(lockTtl);
+        this.lockWaitMillis = unit.toMillis(lockWait);
+        return this;
+    }
+
+    public CacheObtainOptions lockPoll(long lockPoll, TimeUnit unit) {
+        Assert.isTrue(this != DEFAULT, "DEFAULT options are immutable");
+        Assert.isTrue(lockPoll > 0, "lockPoll must be positive");
+        this.lockPollMillis = unit.toMillis(lockPoll);
+        return this;
+    }
+
+    public CacheObtainOptions loadWait(long loadWait, TimeUnit unit) {
+        Assert.isTrue(this != DEFAULT, "DEFAULT options are immutable");
+        Assert.isTrue(loadWait > 0, "loadWait must be positive");
+        this.loadWaitMillis = unit.toMillis(loadWait);
+        return this;
+    }
+
+    public CacheObtainOptions staleWhileRevalidate(long softTtl, TimeUnit unit) {
+        Assert.isTrue(this != DEFAULT, "DEFAULT options are immutable");
+        Assert.isTrue(softTtl > 0, "softTtl must be positive");
+        this.softTtlMillis = unit.toMillis(softTtl);
+        return this;
+    }
+
+    public CacheObtainOptions xfetch(double beta) {
+        Assert.isTrue(this != DEFAULT, "DEFAULT options are immutable");
+        Assert.isTrue(beta > 0, "xfetch beta must be positive");
+        this.xfetchBeta = beta;
+        return this;
+    }
+
+    /**
+     * 后台刷新使用的线程池, 默认使用RedisValueOperations注入的cacheRefreshExecutor, 都没有时在调用方线程刷新
+     */
+    public CacheObtainOptions refreshExecutor(Executor refreshExecutor) {
+        Assert.isTrue(this != DEFAULT, "DEFAULT options are immutable");
+        this.refreshExecutor = refreshExecutor;
+        return this;
+    }
+
+    public CacheObtainOptions negativeTtl(long negativeTtl, TimeUnit unit) {
+        Assert.isTrue(this != DEFAULT, "DEFAULT options are immutable");
+        Assert.isTrue(negativeTtl > 0, "negativeTtl must be positive");
+        this.negativeTtlMillis = unit.toMillis(negativeTtl);
+        return this;
+    }
+
+    public CacheObtainOptions bloomFilter(BloomFilter bloomFilter) {
+        Assert.isTrue(this != DEFAULT, "DEFAULT options are immutable");
+        this.bloomFilter = bloomFilter;
+        return this;
+    }
+
+    public boolean isEnveloped() {
+        return softTtlMillis > 0 || xfetchBeta > 0;
+    }
+
+    public long getLockTtlMillis() {
+        return lockTtlMillis;
+    }
+
+    public long getLockWaitMillis() {
+        return lockWaitMillis;
+    }
+
+    public long getLockPollMillis() {
+        return lockPollMillis;
+    }
+
+    /**
+     * 加载方最多等锁lockWaitMillis, 拿到锁后加载超过lockTtlMillis时锁已失效, 其他节点也会开始加载
+     */
+    public long getLoadWaitMillis() {
+        if (loadWaitMillis > 0) {
+            return loadWaitMillis;
+        }
+        return lockTtlMillis > 0 ? lockWaitMillis + lockTtlMillis : DEFAULT_LOAD_WAIT_MILLIS;
+    }
+
+    public long getSoftTtlMillis() {
+        return softTtlMillis;
+    }
+
+    public double getXfetchBeta() {
+        return xfetchBeta;
+    }
+
+    public Executor getRefreshExecutor() {
+        return refreshExecutor;
+    }
+
+    public long getNegativeTtlMillis() {
+        return negativeTtlMillis;
+    }
+
+    public BloomFilter getBloomFilter() {
+        return bloomFilter;
+    }
+}
@@ -0,0 +1,30 @@
+package com.igniubi.redis.util;
+
+import com.igniubi.model.enums.common.RedisKeyEnum;
+import org.springframework.util.Assert;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按RedisKeyEnum配置cacheObtain的空值缓存时间, 没有配置的key不缓存空值
+ */
+public class NegativeCacheRegistry {
+
+    private static final Map<String, Long> TTL_MILLIS = new ConcurrentHashMap<>();
+
+    public static void register(RedisKeyEnum keyEnum, long ttl, TimeUnit unit) {
+        Assert.isTrue(ttl > 0, "negative cache ttl must be positive");
+        TTL_MILLIS.put(keyEnum.getCacheKey(), unit.toMillis(ttl));
+    }
+
+    public static void remove(RedisKeyEnum keyEnum) {
+        TTL_MILLIS.remove(keyEnum.getCacheKey());
+    }
+
+    public static long ttlMillis(RedisKeyEnum keyEnum) {
+        Long ttl = TTL_MILLIS.get(keyEnum.getCacheKey());
+        return ttl == null ? 0L : ttl;
+    }
+}
@@ -1,36 +1,291 @@
 package com.igniubi.redis.util;
 
+import com.alibaba.fastjson.JSON;
 import com.igniubi.model.enums.common.RedisKeyEnum;
 import com.igniubi.redis.operations.RedisValueOperations;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 public class RedisOperationsUtil {
 
     private static final Logger logger = LoggerFactory.getLogger(RedisOperationsUtil.class);
 
+    private static final String LOCK_PREFIX = "lock:";
+
+    /**
+     * 空值占位, 与CacheEnvelope.MARKER一样不是合法的json, 不会与任何缓存值(包括空串序列化后的\"\")混淆
+     */
+    public static final String NULL_VALUE = "nil1|";
+
+    /**
+     * 正在加载的key和结果类型, 同一个key以同一类型并发调用时只有一个去执行callable
+     */
+    private static final ConcurrentHashMap<String, CompletableFuture<Object>> LOADING = new ConcurrentHashMap<>();
+
+    /**
+     * 正在后台刷新的key
+     */
+    private static final Set<String> REFRESHING = ConcurrentHashMap.newKeySet();
+
     public static <T> T cacheObtain(RedisValueOperations operations, RedisKeyEnum keyEnum, Object key, Callable<T> callable, Class<T> c) {
+        return cacheObtain(operations, keyEnum, key, callable, c, CacheObtainOptions.DEFAULT);
+    }
+
+    public static <T> T cacheObtain(RedisValueOperations operations, RedisKeyEnum keyEnum, Object key, Callable<T> callable, Class<T> c,
+                                    CacheObtainOptions options) {
+        if (options.getBloomFilter() != null && !options.getBloomFilter().mightContain(key)) {
+            logger.debug(" cacheObtain rejected by bloom filter, key is {} ", key);
+            return null;
+        }
         RedisKeyBuilder keyBuilder = RedisKeyBuilder.newInstance().appendFixed(keyEnum.getCacheKey()).appendVar(key);
+        long negativeTtl = options.getNegativeTtlMillis() > 0 ? options.getNegativeTtlMillis() : NegativeCacheRegistry.ttlMillis(keyEnum);
+        Writer<T> writer = options.isEnveloped()
+                ? (value, delta) -> writeEnvelope(operations, keyEnum, keyBuilder, value, delta, options)
+                : (value, delta) -> operations.set(keyBuilder, value, keyEnum.getCacheTime(), keyEnum.getTimeUnit());
 
-        T t = operations.get(keyBuilder, c);
-        if (t != null) {
-            logger.info(" cacheObtain from cache success, key is {} ", keyBuilder.getKey());
-            return t;
+        String raw = operations.getString(keyBuilder);
+        if (NULL_VALUE.equals(raw)) {
+            logger.info(" cacheObtain null from cache, key is {} ", keyBuilder.getKey());
+            return null;
+        }
+        if (raw != null) {
+            CacheEnvelope envelope = envelope(keyBuilder, raw);
+            T t = envelope != null ? parse(keyBuilder, envelope.getValue(), c)
+                    : CacheEnvelope.isEnvelope(raw) ? null : parse(keyBuilder, raw, c);
+            if (t != null) {
+                logger.info(" cacheObtain from cache success, key is {} ", keyBuilder.getKey());
+                /* 普通格式的值没有软过期信息, 开启软过期后按已过期处理, 刷新时改写为envelope格式 */
+                if (options.isEnveloped() && (envelope == null || shouldRefresh(envelope, options))) {
+                    refresh(operations, keyBuilder, callable, options, writer, negativeTtl);
+                }
+                return t;
+            }
         }
+        return singleFlight(keyBuilder.getKey(), c, options.getLoadWaitMillis(), () -> load(operations, keyBuilder, callable, c, options, writer, negativeTtl));
+    }
+
+    /**
+     * 软过期之后, 或者XFetch按 now - delta * beta * ln(random) >= expiry 提前判定过期时刷新
+     */
+    private static boolean shouldRefresh(CacheEnvelope envelope, CacheObtainOptions options) {
+        long now = System.currentTimeMillis();
+        if (now >= envelope.getSoftExpireAt()) {
+            return true;
+        }
+        if (options.getXfetchBeta() <= 0) {
+            return false;
+        }
+        double random = 1D - ThreadLocalRandom.current().nextDouble();
+        return now - envelope.getDelta() * options.getXfetchBeta() * Math.log(random) >= envelope.getSoftExpireAt();
+    }
 
+    private static <T> void refresh(RedisValueOperations operations, RedisKeyBuilder keyBuilder, Callable<T> callable,
+                                    CacheObtainOptions options, Writer<T> writer, long negativeTtl) {
+        String key = keyBuilder.getKey();
+        if (!REFRESHING.add(key)) {
+            return;
+        }
+        Runnable task = () -> {
+            try {
+                /* 刷新时已经有旧值可用, 拿不到分布式锁直接放弃, 由持有锁的节点刷新 */
+                String token = lock(operations, keyBuilder, options, false);
+                if (token == null) {
+                    return;
+                }
+                try {
+                    compute(operations, keyBuilder, callable, writer, negativeTtl);
+                } finally {
+                    unlock(operations, keyBuilder, token);
+                }
+            } finally {
+                REFRESHING.remove(key);
+            }
+        };
+        Executor executor = options.getRefreshExecutor() != null ? options.getRefreshExecutor() : operations.getRefreshExecutor();
+        if (executor == null) {
+            /* 没有刷新线程池时由触发刷新的调用方执行, 其他调用方仍直接返回旧值 */
+            task.run();
+            return;
+        }
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            REFRESHING.remove(key);
+            logger.warn("cacheObtain refresh rejected, key is {}", key);
+        }
+    }
+
+    private static <T> T load(RedisValueOperations operations, RedisKeyBuilder keyBuilder, Callable<T> callable, Class<T> c,
+                              CacheObtainOptions options, Writer<T> writer, long negativeTtl) {
+        String token = null;
+        if (options.getLockTtlMillis() > 0) {
+            token = lock(operations, keyBuilder, options, true);
+            if (token == null) {
+                /* 等锁期间其他节点已经回填 */
+                String raw = operations.getString(keyBuilder);
+                if (NULL_VALUE.equals(raw)) {
+                    return null;
+                }
+                T t = raw == null ? null : cached(keyBuilder, raw, c);
+                if (t != null) {
+                    logger.info(" cacheObtain from cache success, key is {} ", keyBuilder.getKey());
+                    return t;
+                }
+            }
+        }
+        try {
+            return compute(operations, keyBuilder, callable, writer, negativeTtl);
+        } finally {
+            unlock(operations, keyBuilder, token);
+        }
+    }
+
+    /**
+     * 获取分布式锁, 返回token; 没有配置锁时返回空串. wait为true时在lockWait内轮询, 期间缓存被回填或超时都返回null
+     */
+    private static String lock(RedisValueOperations operations, RedisKeyBuilder keyBuilder, CacheObtainOptions options, boolean wait) {
+        if (options.getLockTtlMillis() <= 0) {
+            return "";
+        }
+        RedisKeyBuilder lockKey = RedisKeyBuilder.newInstance().appendFixed(LOCK_PREFIX).appendFixed(keyBuilder.getKey());
+        String token = UUID.randomUUID().toString();
+        long deadline = System.currentTimeMillis() + options.getLockWaitMillis();
+        while (true) {
+            if (operations.tryLock(lockKey, token, options.getLockTtlMillis(), TimeUnit.MILLISECONDS)) {
+                return token;
+            }
+            if (!wait || System.currentTimeMillis() >= deadline) {
+                return null;
+            }
+            try {
+                Thread.sleep(options.getLockPollMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            if (operations.getString(keyBuilder) != null) {
+                return null;
+            }
+        }
+    }
+
+    private static void unlock(RedisValueOperations operations, RedisKeyBuilder keyBuilder, String token) {
+        if (token != null && !token.isEmpty()) {
+            operations.unlock(RedisKeyBuilder.newInstance().appendFixed(LOCK_PREFIX).appendFixed(keyBuilder.getKey()), token);
+        }
+    }
+
+    /**
+     * callable正常返回null且配置了负缓存时间时写入空值占位, 异常不缓存
+     */
+    private static <T> T compute(RedisValueOperations operations, RedisKeyBuilder keyBuilder, Callable<T> callable,
+                                 Writer<T> writer, long negativeTtl) {
+        T t;
+        long start = System.currentTimeMillis();
         try {
             t = callable.call();
             logger.info(" cacheObtain from callable success, key is {}", keyBuilder.getKey());
         } catch (Exception e) {
             logger.info("cacheObtain error, e is {}", e);
+            return null;
         }
 
         if (t != null) {
-            operations.set(keyBuilder, t, keyEnum.getCacheTime(), keyEnum.getTimeUnit());
+            writer.write(t, System.currentTimeMillis() - start);
+        } else if (negativeTtl > 0) {
+            operations.setString(keyBuilder, NULL_VALUE, negativeTtl, TimeUnit.MILLISECONDS);
         }
-
         return t;
     }
+
+    private static <T> void writeEnvelope(RedisValueOperations operations, RedisKeyEnum keyEnum, RedisKeyBuilder keyBuilder,
+                                          T value, long delta, CacheObtainOptions options) {
+        long hardTtl = keyEnum.getTimeUnit().toMillis(keyEnum.getCacheTime());
+        long softTtl = options.getSoftTtlMillis() > 0 ? Math.min(options.getSoftTtlMillis(), hardTtl) : hardTtl;
+        CacheEnvelope envelope = new CacheEnvelope();
+        envelope.setValue(JSON.toJSONString(value));
+        envelope.setSoftExpireAt(System.currentTimeMillis() + softTtl);
+        envelope.setDelta(delta);
+        operations.setString(keyBuilder, CacheEnvelope.encode(envelope), hardTtl, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 按前缀识别两种格式的缓存值
+     */
+    private static <T> T cached(RedisKeyBuilder keyBuilder, String raw, Class<T> c) {
+        if (!CacheEnvelope.isEnvelope(raw)) {
+            return parse(keyBuilder, raw, c);
+        }
+        CacheEnvelope envelope = envelope(keyBuilder, raw);
+        return envelope == null ? null : parse(keyBuilder, envelope.getValue(), c);
+    }
+
+    private static CacheEnvelope envelope(RedisKeyBuilder keyBuilder, String raw) {
+        try {
+            return CacheEnvelope.decode(raw);
+        } catch (Exception e) {
+            logger.warn("cacheObtain parse error, key is {}, e is {}", keyBuilder.getKey(), e);
+        }
+        return null;
+    }
+
+    private static <T> T parse(RedisKeyBuilder keyBuilder, String raw, Class<T> c) {
+        try {
+            return JSON.parseObject(raw, c);
+        } catch (Exception e) {
+            logger.warn("cacheObtain parse error, key is {}, e is {}", keyBuilder.getKey(), e);
+        }
+        return null;
+    }
+
+    /**
+     * 同一个key以不同类型调用时分别加载, 等待方拿到的结果一定是自己请求的类型.
+     * 等待方最多等waitMillis, 加载方卡住时自己加载, 不随加载方一起挂起
+     */
+    private static <T> T singleFlight(String key, Class<T> c, long waitMillis, Supplier<T> loader) {
+        String loadingKey = key + '\n' + c.getName();
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = LOADING.putIfAbsent(loadingKey, mine);
+        if (running != null) {
+            try {
+                return c.cast(running.get(waitMillis, TimeUnit.MILLISECONDS));
+            } catch (TimeoutException e) {
+                logger.info("cacheObtain wait timeout, load directly, key is {}", key);
+                return loader.get();
+            } catch (ExecutionException e) {
+                logger.info("cacheObtain error, e is {}", e.getCause());
+                return null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+        try {
+            T t = loader.get();
+            mine.complete(t);
+            return t;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            LOADING.remove(loadingKey, mine);
+        }
+    }
+
+    private interface Writer<T> {
+        void write(T value, long delta);
+    }
 }
@@ -0,0 +1,47 @@
+package com.igniubi.redis.util;
+
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+/**
+ * 写入并设置过期时间的lua脚本, 一次往返完成, 不存在没有过期时间的窗口.
+ * RedisTemplate执行时先用EVALSHA, 服务端没有缓存脚本时再用EVAL
+ */
+public class RedisScripts {
+
+    /**
+     * KEYS[1] key, ARGV[1] value, ARGV[2] 过期毫秒数
+     */
+    public static final RedisScript<Long> RPUSH_PEXPIRE = script("RPUSH");
+
+    public static final RedisScript<Long> LPUSH_PEXPIRE = script("LPUSH");
+
+    /**
+     * KEYS[1] key, ARGV[1] 增量, ARGV[2] 过期毫秒数
+     */
+    public static final RedisScript<Long> INCRBY_PEXPIRE = script("INCRBY");
+
+    /**
+     * KEYS[1] key, ARGV[1] member, ARGV[2] score, ARGV[3] 过期毫秒数, 返回新增的member数
+     */
+    public static final RedisScript<Long> ZADD_PEXPIRE = new DefaultRedisScript<>(
+            "local n = redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1]) "
+                    + "redis.call('PEXPIRE', KEYS[1], ARGV[3]) "
+                    + "return n", Long.class);
+
+    /**
+     * KEYS[1] 锁key, ARGV[1] 加锁时的token, 只删除自己持有的锁
+     */
+    public static final RedisScript<Long> UNLOCK = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('DEL', KEYS[1]) "
+                    + "end "
+                    + "return 0", Long.class);
+
+    private static RedisScript<Long> script(String command) {
+        return new DefaultRedisScript<>(
+                "local n = redis.call('" + command + "', KEYS[1], ARGV[1]) "
+                        + "redis.call('PEXPIRE', KEYS[1], ARGV[2]) "
+                        + "return n", Long.class);
+    }
+}
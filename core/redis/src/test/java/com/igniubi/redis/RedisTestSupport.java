@@ -0,0 +1,38 @@
+package com.igniubi.redis;
+
+import org.junit.Assume;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.time.Duration;
+
+/**
+ * 需要redis的测试使用, 默认连接127.0.0.1:6379, 可用-Dredis.host和-Dredis.port指定, 连接不上时跳过测试
+ */
+public final class RedisTestSupport {
+
+    private RedisTestSupport() {
+    }
+
+    public static LettuceConnectionFactory connect() {
+        RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration(
+                System.getProperty("redis.host", "127.0.0.1"), Integer.getInteger("redis.port", 6379));
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(configuration,
+                LettuceClientConfiguration.builder().commandTimeout(Duration.ofSeconds(1)).build());
+        factory.afterPropertiesSet();
+        try {
+            RedisConnection connection = factory.getConnection();
+            try {
+                connection.ping();
+            } finally {
+                connection.close();
+            }
+        } catch (Exception e) {
+            factory.destroy();
+            Assume.assumeNoException("redis is not reachable", e);
+        }
+        return factory;
+    }
+}
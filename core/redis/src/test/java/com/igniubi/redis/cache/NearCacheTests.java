@@ -0,0 +1,72 @@
+package com.igniubi.redis.cache;
+
+import com.igniubi.redis.config.RedisOperationsProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 一级缓存按条目数和字节数淘汰, 失效期间读到的值不回填, 按最长前缀匹配缓存
+ */
+public class NearCacheTests {
+
+    @Test
+    public void evictsByEntriesAndBytes() {
+        NearCache cache = new NearCache("p:", 2, 0, 60000);
+        cache.put("p:1", "a", cache.generation("p:1"));
+        cache.put("p:2", "b", cache.generation("p:2"));
+        assertEquals("a", cache.get("p:1"));
+        cache.put("p:3", "c", cache.generation("p:3"));
+        assertNull(cache.get("p:2"));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+
+        NearCache bounded = new NearCache("p:", 10, 20, 60000);
+        bounded.put("p:1", "aaaa", bounded.generation("p:1"));
+        bounded.put("p:2", "bbbb", bounded.generation("p:2"));
+        assertNull(bounded.get("p:1"));
+        assertEquals(14, bounded.getBytes());
+        bounded.put("p:3", "much longer than twenty bytes", bounded.generation("p:3"));
+        assertNull(bounded.get("p:3"));
+        assertEquals("bbbb", bounded.get("p:2"));
+    }
+
+    @Test
+    public void staleReadIsNotCached() {
+        NearCache cache = new NearCache("p:", 10, 0, 60000);
+        long generation = cache.generation("p:1");
+        cache.invalidate("p:1");
+        cache.put("p:1", "stale", generation);
+        assertNull(cache.get("p:1"));
+        cache.put("p:1", "fresh", cache.generation("p:1"));
+        assertEquals("fresh", cache.get("p:1"));
+    }
+
+    @Test
+    public void metricsAreTaggedByPrefix() {
+        NearCacheManager manager = new NearCacheManager(null, new RedisOperationsProperties.NearCache());
+        NearCache cache = manager.register("user:", 10, 0, 1, TimeUnit.MINUTES);
+        cache.put("user:1", "a", cache.generation("user:1"));
+        cache.get("user:1");
+        cache.get("user:2");
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new NearCacheMetrics(manager).bindTo(registry);
+        assertEquals(1D, registry.get("redis.near.cache.hits").tag("prefix", "user:").functionCounter().count(), 0D);
+        assertEquals(0.5D, registry.get("redis.near.cache.hit.rate").tag("prefix", "user:").gauge().value(), 0D);
+        assertEquals(1D, registry.get("redis.near.cache.size").tag("prefix", "user:").gauge().value(), 0D);
+    }
+
+    @Test
+    public void longestPrefixWins() {
+        NearCacheManager manager = new NearCacheManager(null, new RedisOperationsProperties.NearCache());
+        NearCache user = manager.register("user:", 10, 0, 1, TimeUnit.MINUTES);
+        NearCache profile = manager.register("user:profile:", 10, 0, 1, TimeUnit.MINUTES);
+        assertSame(profile, manager.cacheOf("user:profile:1"));
+        assertSame(user, manager.cacheOf("user:1"));
+        assertNull(manager.cacheOf("order:1"));
+        assertNull(manager.cacheOf("u"));
+    }
+}
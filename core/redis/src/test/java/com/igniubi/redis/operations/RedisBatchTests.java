@@ -0,0 +1,170 @@
+package com.igniubi.redis.operations;
+
+import com.igniubi.redis.RedisTestSupport;
+import com.igniubi.redis.cache.NearCache;
+import com.igniubi.redis.cache.NearCacheManager;
+import com.igniubi.redis.config.RedisConfig;
+import com.igniubi.redis.config.RedisOperationsProperties;
+import com.igniubi.redis.util.RedisKeyBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * multiGet/multiSet/RedisBatch分批发送, 结果与key或命令的顺序一致
+ */
+public class RedisBatchTests {
+
+    private static final String PREFIX = "batch:test:";
+
+    private LettuceConnectionFactory factory;
+
+    private RedisTemplate<String, String> template;
+
+    private RedisValueOperations valueOperations;
+
+    @Before
+    public void setUp() {
+        factory = RedisTestSupport.connect();
+        template = new RedisConfig().getStringRedisTemplate(factory);
+        valueOperations = new RedisValueOperations(template);
+        RedisOperationsProperties properties = new RedisOperationsProperties();
+        /* 5个key分3批发送 */
+        properties.setMaxBatchSize(2);
+        valueOperations.setProperties(properties);
+    }
+
+    @After
+    public void tearDown() {
+        if (factory == null) {
+            return;
+        }
+        Set<String> keys = template.keys(PREFIX + "*");
+        if (keys != null && ! keys.isEmpty()) {
+            template.delete(keys);
+        }
+        factory.destroy();
+    }
+
+    @Test
+    public void multiSetThenMultiGetKeepsOrder() {
+        Map<RedisKeyBuilder, Object> values = new LinkedHashMap<>();
+        for (int i = 0; i < 5; i++) {
+            values.put(key("user:" + i), new User(i, "user-" + i));
+        }
+        valueOperations.multiSet(values, 60, TimeUnit.SECONDS);
+
+        List<RedisKeyBuilder> keys = Arrays.asList(key("user:4"), key("missing"), key("user:0"), key("user:2"), key("user:3"));
+        List<User> users = valueOperations.multiGet(keys, User.class);
+        assertEquals(5, users.size());
+        assertEquals("user-4", users.get(0).getName());
+        assertNull(users.get(1));
+        assertEquals(0, users.get(2).getId());
+        assertEquals("user-2", users.get(3).getName());
+        assertEquals("user-3", users.get(4).getName());
+        long ttl = template.getExpire(PREFIX + "user:0", TimeUnit.MILLISECONDS);
+        assertTrue("ttl " + ttl, ttl > 0 && ttl <= TimeUnit.SECONDS.toMillis(60));
+    }
+
+    @Test
+    public void batchReturnsResultsInCommandOrder() {
+        RedisBatch batch = valueOperations.batch()
+                .set(key("value"), new User(1, "batch"), 60, TimeUnit.SECONDS)
+                .get(key("value"), User.class)
+                .increament(key("counter"), 3, 60, TimeUnit.SECONDS)
+                .rightPush(key("list"), "a", 60, TimeUnit.SECONDS)
+                .zAdd(key("zset"), "m", 1D, 60, TimeUnit.SECONDS)
+                .zAdd(key("zset"), "m", 2D, 60, TimeUnit.SECONDS);
+        assertEquals(6, batch.size());
+
+        List<Object> results = batch.execute();
+        assertEquals(6, results.size());
+        assertEquals("batch", ((User) results.get(1)).getName());
+        assertEquals(3L, results.get(2));
+        assertEquals(1L, results.get(3));
+        assertEquals(Boolean.TRUE, results.get(4));
+        assertEquals(Boolean.FALSE, results.get(5));
+        assertEquals(0, batch.size());
+        for (String written : new String[]{"value", "counter", "list", "zset"}) {
+            long ttl = template.getExpire(PREFIX + written, TimeUnit.MILLISECONDS);
+            assertTrue(written + " ttl " + ttl, ttl > 0 && ttl <= TimeUnit.SECONDS.toMillis(60));
+        }
+    }
+
+    @Test
+    public void batchWritesInvalidateNearCache() {
+        NearCacheManager nearCacheManager = new NearCacheManager(template, new RedisOperationsProperties.NearCache());
+        NearCache cache = nearCacheManager.register(PREFIX, 10, 0, 1, TimeUnit.MINUTES);
+        valueOperations.setNearCacheManager(nearCacheManager);
+        valueOperations.set(key("cached"), new User(1, "old"), 60, TimeUnit.SECONDS);
+        valueOperations.set(key("count"), 1, 60, TimeUnit.SECONDS);
+        assertEquals("old", valueOperations.get(key("cached"), User.class).getName());
+        assertEquals(Integer.valueOf(1), valueOperations.get(key("count"), Integer.class));
+        assertEquals(2, cache.size());
+
+        valueOperations.batch()
+                .set(key("cached"), new User(1, "new"), 60, TimeUnit.SECONDS)
+                .increament(key("count"), 2, 60, TimeUnit.SECONDS)
+                .execute();
+        assertEquals(0, cache.size());
+        assertEquals("new", valueOperations.get(key("cached"), User.class).getName());
+        assertEquals(Integer.valueOf(3), valueOperations.get(key("count"), Integer.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveBatchSizeIsRejected() {
+        new RedisBatch(template, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveBatchSizePropertyIsRejected() {
+        new RedisOperationsProperties().setMaxBatchSize(0);
+    }
+
+    @Test
+    public void emptyBatchSendsNothing() {
+        assertTrue(valueOperations.batch().execute().isEmpty());
+    }
+
+    private static RedisKeyBuilder key(String key) {
+        return RedisKeyBuilder.newInstance().appendFixed(PREFIX).appendVar(key);
+    }
+
+    public static class User {
+
+        private int id;
+
+        private String name;
+
+        public User() {
+        }
+
+        User(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public void setId(int id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+    }
+}
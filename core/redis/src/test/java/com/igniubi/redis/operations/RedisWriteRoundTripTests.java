@@ -0,0 +1,128 @@
+package com.igniubi.redis.operations;
+
+import com.igniubi.redis.RedisTestSupport;
+import com.igniubi.redis.config.RedisConfig;
+import com.igniubi.redis.util.RedisKeyBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 写入和设置过期时间在一次往返内完成, 往返次数按客户端发出的命令计数
+ */
+public class RedisWriteRoundTripTests {
+
+    private static final Set<String> NOT_COMMANDS = new HashSet<>(Arrays.asList("close", "isClosed",
+            "getNativeConnection", "isQueueing", "isPipelined", "isSubscribed", "getSubscription", "getSentinelConnection"));
+
+    private static final String[] KEYS = {"roundtrip:list", "roundtrip:zset", "roundtrip:counter"};
+
+    private final AtomicInteger commands = new AtomicInteger();
+
+    private LettuceConnectionFactory factory;
+
+    private RedisListOperations listOperations;
+
+    private RedisZsetOperations zsetOperations;
+
+    private RedisValueOperations valueOperations;
+
+    @Before
+    public void setUp() {
+        factory = RedisTestSupport.connect();
+        RedisTemplate<String, String> template = new RedisConfig().getStringRedisTemplate(counting(factory));
+        listOperations = new RedisListOperations(template);
+        zsetOperations = new RedisZsetOperations(template);
+        valueOperations = new RedisValueOperations(template);
+    }
+
+    @After
+    public void tearDown() {
+        if (factory == null) {
+            return;
+        }
+        RedisConnection connection = factory.getConnection();
+        try {
+            for (String key : KEYS) {
+                connection.del(key.getBytes(StandardCharsets.UTF_8));
+            }
+        } finally {
+            connection.close();
+            factory.destroy();
+        }
+    }
+
+    @Test
+    public void writeWithTtlTakesOneRoundTrip() {
+        /* 第一次调用时服务端可能没有缓存脚本, EVALSHA失败后再EVAL */
+        writeAll();
+        commands.set(0);
+        writeAll();
+        assertEquals(4, commands.get());
+        RedisConnection connection = factory.getConnection();
+        try {
+            for (String key : KEYS) {
+                long ttl = connection.pTtl(key.getBytes(StandardCharsets.UTF_8));
+                assertTrue(key + " ttl " + ttl, ttl > 0 && ttl <= TimeUnit.SECONDS.toMillis(60));
+            }
+        } finally {
+            connection.close();
+        }
+    }
+
+    private void writeAll() {
+        listOperations.rightPush(key(KEYS[0]), "right", 60, TimeUnit.SECONDS);
+        listOperations.leftPush(key(KEYS[0]), "left", 60, TimeUnit.SECONDS);
+        zsetOperations.zAdd(key(KEYS[1]), "member", 1D, 60, TimeUnit.SECONDS);
+        valueOperations.increament(key(KEYS[2]), 1, 60, TimeUnit.SECONDS);
+    }
+
+    private static RedisKeyBuilder key(String key) {
+        return RedisKeyBuilder.newInstance().appendFixed(key);
+    }
+
+    /**
+     * 每次调用连接上的命令方法计为一次往返
+     */
+    private RedisConnectionFactory counting(RedisConnectionFactory factory) {
+        return (RedisConnectionFactory) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{RedisConnectionFactory.class}, (proxy, method, args) -> {
+                    Object result = invoke(factory, method, args);
+                    if (! "getConnection".equals(method.getName())) {
+                        return result;
+                    }
+                    RedisConnection connection = (RedisConnection) result;
+                    return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{RedisConnection.class},
+                            (connectionProxy, command, commandArgs) -> {
+                                if (! NOT_COMMANDS.contains(command.getName()) && ! command.getName().endsWith("Commands")) {
+                                    commands.incrementAndGet();
+                                }
+                                return invoke(connection, command, commandArgs);
+                            });
+                });
+    }
+
+    private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
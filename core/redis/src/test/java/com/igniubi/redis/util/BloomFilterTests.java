@@ -0,0 +1,76 @@
+package com.igniubi.redis.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import static org.junit.Assert.*;
+
+/**
+ * 布隆过滤器不误判不存在, 误判存在的比例接近fpp
+ */
+public class BloomFilterTests {
+
+    @Test
+    public void noFalseNegatives() {
+        BloomFilter filter = new BloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.put(i);
+        }
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(String.valueOf(i), filter.mightContain(i));
+        }
+        assertEquals(0, filter.getRejected());
+    }
+
+    @Test
+    public void falsePositiveRateNearFpp() {
+        BloomFilter filter = new BloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.put(i);
+        }
+        int falsePositives = 0;
+        for (int i = 10000; i < 110000; i++) {
+            if (filter.mightContain(i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue("false positives " + falsePositives, falsePositives < 2000);
+        assertEquals(100000 - falsePositives, filter.getRejected());
+    }
+
+    @Test
+    public void keysMatchByToString() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+        filter.put(42L);
+        assertTrue(filter.mightContain("42"));
+        assertTrue(filter.mightContain(42));
+    }
+
+    @Test
+    public void failedWarmKeepsLoadedKeys() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+        assertTrue(filter.warm(() -> Arrays.asList(1, 2)));
+        assertFalse(filter.warm(() -> () -> new Iterator<Object>() {
+
+            private int next = 3;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Object next() {
+                if (next > 4) {
+                    throw new IllegalStateException("loader failed");
+                }
+                return next++;
+            }
+        }));
+        for (int i = 1; i <= 4; i++) {
+            assertTrue(String.valueOf(i), filter.mightContain(i));
+        }
+    }
+}
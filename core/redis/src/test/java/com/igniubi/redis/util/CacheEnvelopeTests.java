@@ -0,0 +1,35 @@
+package com.igniubi.redis.util;
+
+import com.alibaba.fastjson.JSON;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * envelope格式以MARKER开头, 与普通json格式的缓存值互不混淆
+ */
+public class CacheEnvelopeTests {
+
+    @Test
+    public void encodeThenDecode() {
+        CacheEnvelope envelope = new CacheEnvelope();
+        envelope.setValue(JSON.toJSONString("value"));
+        envelope.setSoftExpireAt(1000L);
+        envelope.setDelta(20L);
+
+        String raw = CacheEnvelope.encode(envelope);
+        assertTrue(raw.startsWith(CacheEnvelope.MARKER));
+        assertTrue(CacheEnvelope.isEnvelope(raw));
+        assertEquals(envelope, CacheEnvelope.decode(raw));
+    }
+
+    @Test
+    public void plainJsonIsNotEnvelope() {
+        /* 内容恰好是MARKER的字符串, 序列化后带引号 */
+        for (String plain : new String[]{JSON.toJSONString(CacheEnvelope.MARKER), "{\"value\":\"1\",\"softExpireAt\":1}", "1"}) {
+            assertFalse(plain, CacheEnvelope.isEnvelope(plain));
+            assertNull(plain, CacheEnvelope.decode(plain));
+        }
+        assertFalse(CacheEnvelope.isEnvelope(null));
+    }
+}
@@ -0,0 +1,187 @@
+package com.igniubi.redis.util;
+
+import com.igniubi.model.enums.common.RedisKeyEnum;
+import com.igniubi.redis.RedisTestSupport;
+import com.igniubi.redis.config.RedisConfig;
+import com.igniubi.redis.operations.RedisValueOperations;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * cacheObtain的合并加载和软过期刷新
+ */
+public class CacheObtainTests {
+
+    /* 只依赖key前缀和过期时间, 任取一个 */
+    private static final RedisKeyEnum KEY_ENUM = RedisKeyEnum.values()[0];
+
+    private LettuceConnectionFactory factory;
+
+    private RedisTemplate<String, String> template;
+
+    private RedisValueOperations valueOperations;
+
+    private ExecutorService executor;
+
+    private String id;
+
+    @Before
+    public void setUp() {
+        factory = RedisTestSupport.connect();
+        template = new RedisConfig().getStringRedisTemplate(factory);
+        valueOperations = new RedisValueOperations(template);
+        executor = Executors.newFixedThreadPool(8);
+        id = "cache-obtain-test-" + UUID.randomUUID();
+    }
+
+    @After
+    public void tearDown() {
+        if (factory == null) {
+            return;
+        }
+        executor.shutdownNow();
+        template.delete(redisKey());
+        factory.destroy();
+    }
+
+    @Test
+    public void concurrentCallersLoadOnce() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return RedisOperationsUtil.cacheObtain(valueOperations, KEY_ENUM, id, () -> {
+                    calls.incrementAndGet();
+                    Thread.sleep(300);
+                    return "loaded";
+                }, String.class);
+            }));
+        }
+        start.countDown();
+        for (Future<String> result : results) {
+            assertEquals("loaded", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void followerStopsWaitingForStalledLoader() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> stalled = executor.submit(() -> RedisOperationsUtil.cacheObtain(valueOperations, KEY_ENUM, id, () -> {
+            loading.countDown();
+            release.await();
+            return "stalled";
+        }, String.class));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        long start = System.nanoTime();
+        String value = RedisOperationsUtil.cacheObtain(valueOperations, KEY_ENUM, id, () -> "direct", String.class,
+                CacheObtainOptions.newInstance().loadWait(200, TimeUnit.MILLISECONDS));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertEquals("direct", value);
+        assertTrue("elapsed " + elapsed, elapsed >= 190 && elapsed < 2000);
+        release.countDown();
+        assertEquals("stalled", stalled.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void sameKeyWithDifferentTypesLoadsSeparately() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        Future<Integer> number = executor.submit(() -> RedisOperationsUtil.cacheObtain(valueOperations, KEY_ENUM, id, () -> {
+            loading.countDown();
+            Thread.sleep(300);
+            return 1;
+        }, Integer.class));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        /* 等待方不能拿到别的类型的结果 */
+        String text = RedisOperationsUtil.cacheObtain(valueOperations, KEY_ENUM, id, () -> "text", String.class);
+        assertEquals("text", text);
+        assertEquals(Integer.valueOf(1), number.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void staleValueIsServedWhileRefreshing() throws Exception {
+        valueOperations.setRefreshExecutor(executor);
+        CacheObtainOptions options = CacheObtainOptions.newInstance().staleWhileRevalidate(100, TimeUnit.MILLISECONDS);
+        AtomicInteger version = new AtomicInteger();
+        Callable<String> loader = () -> "v" + version.incrementAndGet();
+
+        assertEquals("v1", RedisOperationsUtil.cacheObtain(valueOperations, KEY_ENUM, id, loader, String.class, options));
+        assertEquals("v1", RedisOperationsUtil.cacheObtain(valueOperations, KEY_ENUM, id, loader, String.class, options));
+        assertEquals(1, version.get());
+
+        Thread.sleep(150);
+        assertEquals("v1", RedisOperationsUtil.cacheObtain(valueOperations, KEY_ENUM, id, loader, String.class, options));
+        assertEquals("v2", awaitCached(options, loader, "v2"));
+        assertTrue(CacheEnvelope.isEnvelope(template.opsForValue().get(redisKey())));
+    }
+
+    @Test
+    public void plainAndEnvelopedReadersShareKey() throws Exception {
+        CacheObtainOptions options = CacheObtainOptions.newInstance().staleWhileRevalidate(1, TimeUnit.MINUTES);
+        assertEquals("plain", RedisOperationsUtil.cacheObtain(valueOperations, KEY_ENUM, id, () -> "plain", String.class));
+
+        /* 普通格式按已软过期处理, 先返回旧值, 没有刷新线程池时在调用方线程改写为envelope格式 */
+        assertEquals("plain", RedisOperationsUtil.cacheObtain(valueOperations, KEY_ENUM, id, () -> "enveloped", String.class, options));
+        assertTrue(CacheEnvelope.isEnvelope(template.opsForValue().get(redisKey())));
+
+        assertEquals("enveloped", RedisOperationsUtil.cacheObtain(valueOperations, KEY_ENUM, id, () -> "reloaded", String.class));
+    }
+
+    @Test
+    public void nullIsCachedAsSentinel() {
+        CacheObtainOptions options = CacheObtainOptions.newInstance().negativeTtl(1, TimeUnit.MINUTES);
+        AtomicInteger calls = new AtomicInteger();
+        assertNull(RedisOperationsUtil.cacheObtain(valueOperations, KEY_ENUM, id, () -> {
+            calls.incrementAndGet();
+            return null;
+        }, String.class, options));
+        assertEquals(RedisOperationsUtil.NULL_VALUE, template.opsForValue().get(redisKey()));
+        assertNull(RedisOperationsUtil.cacheObtain(valueOperations, KEY_ENUM, id, () -> "loaded", String.class, options));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void emptyStringIsNotSentinel() {
+        CacheObtainOptions options = CacheObtainOptions.newInstance().negativeTtl(1, TimeUnit.MINUTES);
+        assertEquals("", RedisOperationsUtil.cacheObtain(valueOperations, KEY_ENUM, id, () -> "", String.class, options));
+        assertNotEquals(RedisOperationsUtil.NULL_VALUE, template.opsForValue().get(redisKey()));
+        assertEquals("", RedisOperationsUtil.cacheObtain(valueOperations, KEY_ENUM, id, () -> "loaded", String.class, options));
+    }
+
+    @Test
+    public void bloomRejectionIsCounted() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+        filter.put("known");
+        CacheObtainOptions options = CacheObtainOptions.newInstance().bloomFilter(filter);
+        assertNull(RedisOperationsUtil.cacheObtain(valueOperations, KEY_ENUM, id, () -> "loaded", String.class, options));
+        assertEquals(1, filter.getRejected());
+        assertNull(template.opsForValue().get(redisKey()));
+    }
+
+    private String awaitCached(CacheObtainOptions options, Callable<String> loader, String expected) throws InterruptedException {
+        String value = null;
+        for (int i = 0; i < 50 && !expected.equals(value); i++) {
+            Thread.sleep(20);
+            value = RedisOperationsUtil.cacheObtain(valueOperations, KEY_ENUM, id, loader, String.class, options);
+        }
+        return value;
+    }
+
+    private String redisKey() {
+        return RedisKeyBuilder.newInstance().appendFixed(KEY_ENUM.getCacheKey()).appendVar(id).getKey();
+    }
+}